@@ -0,0 +1,313 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * A read-only implementation of Graph that stores each adjacency list as
+ * gap-encoded variable-length integers.
+ *
+ * <p>Vertices are numbered by the sorted order of their labels. For each
+ * vertex the ids of its targets (and, separately, of its sources) are sorted,
+ * and each neighbor is written as the gap from the previous id followed by
+ * the edge weight, both as unsigned LEB128 varints. Small gaps and small
+ * weights, which dominate skewed word graphs, take one byte each.
+ *
+ * <p>Mutators throw UnsupportedOperationException.
+ */
+public class CompressedGraph implements Graph<String>, HeapFootprint.Measured {
+
+    private final String[] labels;
+    private final int[] outOffsets;
+    private final byte[] outData;
+    private final int[] inOffsets;
+    private final byte[] inData;
+
+    // Abstraction function:
+    //   Represents the directed weighted graph whose vertices are labels, and
+    //   which has an edge from labels[v] to labels[u] with weight w iff the
+    //   bytes outData[outOffsets[v] .. outOffsets[v+1]) decode to a sequence
+    //   of (gap, weight) pairs in which the running sum of gaps reaches u with
+    //   weight w; inData and inOffsets encode the same edges by target
+
+    // Representation invariant:
+    //   - labels is strictly sorted and contains no null
+    //   - outOffsets and inOffsets have length labels.length + 1, start at 0,
+    //     are nondecreasing and end at outData.length and inData.length
+    //   - every decoded neighbor id is in [0, labels.length) and strictly
+    //     increasing within one list; every decoded weight is positive
+    //   - inData holds exactly the reverse of the edges in outData
+
+    // Safety from rep exposure:
+    //   - all fields are private and final, and arrays are never returned
+    //   - vertices() returns an unmodifiable view
+    //   - sources() and targets() return new maps
+
+    /**
+     * Visitor for streaming the neighbors of a vertex without building a map.
+     */
+    public interface NeighborVisitor {
+
+        /**
+         * Receive one neighbor.
+         *
+         * @param label label of the neighboring vertex
+         * @param weight positive weight of the edge
+         */
+        void visit(String label, int weight);
+    }
+
+    /**
+     * Make a compressed copy of a graph.
+     *
+     * @param graph the graph to copy; it is not modified
+     */
+    public CompressedGraph(Graph<String> graph) {
+        labels = graph.vertices().toArray(new String[0]);
+        Arrays.sort(labels);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            ids.put(labels[i], i);
+        }
+
+        int[][] targetIds = new int[labels.length][];
+        int[][] targetWeights = new int[labels.length][];
+        int[] inDegree = new int[labels.length];
+        for (int v = 0; v < labels.length; v++) {
+            Map<String, Integer> targets = graph.targets(labels[v]);
+            int[] order = new int[targets.size()];
+            long[] packed = new long[targets.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+                int u = ids.get(edge.getKey());
+                packed[i++] = ((long) u << 32) | edge.getValue();
+                inDegree[u]++;
+            }
+            Arrays.sort(packed);
+            targetWeights[v] = new int[packed.length];
+            for (i = 0; i < packed.length; i++) {
+                order[i] = (int) (packed[i] >>> 32);
+                targetWeights[v][i] = (int) packed[i];
+            }
+            targetIds[v] = order;
+        }
+
+        // reverse the edges; visiting sources in increasing order keeps each
+        // source list sorted
+        int[][] sourceIds = new int[labels.length][];
+        int[][] sourceWeights = new int[labels.length][];
+        for (int u = 0; u < labels.length; u++) {
+            sourceIds[u] = new int[inDegree[u]];
+            sourceWeights[u] = new int[inDegree[u]];
+            inDegree[u] = 0;
+        }
+        for (int v = 0; v < labels.length; v++) {
+            for (int i = 0; i < targetIds[v].length; i++) {
+                int u = targetIds[v][i];
+                sourceIds[u][inDegree[u]] = v;
+                sourceWeights[u][inDegree[u]++] = targetWeights[v][i];
+            }
+        }
+
+        outOffsets = new int[labels.length + 1];
+        outData = encode(targetIds, targetWeights, outOffsets);
+        inOffsets = new int[labels.length + 1];
+        inData = encode(sourceIds, sourceWeights, inOffsets);
+        checkRep();
+    }
+
+    private static byte[] encode(int[][] neighbors, int[][] weights, int[] offsets) {
+        VarintWriter out = new VarintWriter();
+        for (int v = 0; v < neighbors.length; v++) {
+            offsets[v] = out.size();
+            int previous = 0;
+            for (int i = 0; i < neighbors[v].length; i++) {
+                out.write(neighbors[v][i] - previous);
+                out.write(weights[v][i]);
+                previous = neighbors[v][i];
+            }
+        }
+        offsets[neighbors.length] = out.size();
+        return out.toByteArray();
+    }
+
+    private void checkRep() {
+        assert labels != null;
+        for (int i = 0; i < labels.length; i++) {
+            assert labels[i] != null;
+            assert i == 0 || labels[i - 1].compareTo(labels[i]) < 0;
+        }
+        assert outOffsets.length == labels.length + 1;
+        assert inOffsets.length == labels.length + 1;
+        assert outOffsets[labels.length] == outData.length;
+        assert inOffsets[labels.length] == inData.length;
+    }
+
+    private int id(String label) {
+        if (label == null) return -1;
+        int i = Arrays.binarySearch(labels, label);
+        return i >= 0 ? i : -1;
+    }
+
+    /**
+     * Stream the neighbors of vertex v encoded in data, in increasing id order.
+     */
+    private void decode(byte[] data, int[] offsets, int v, NeighborVisitor visitor) {
+        int position = offsets[v];
+        int end = offsets[v + 1];
+        int neighbor = 0;
+        while (position < end) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int weight = 0;
+            shift = 0;
+            do {
+                b = data[position++];
+                weight |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            neighbor += gap;
+            visitor.visit(labels[neighbor], weight);
+        }
+    }
+
+    /**
+     * Stream the target vertices with directed edges from a source vertex.
+     *
+     * @param source a label
+     * @param visitor receives each target and the weight of the edge from
+     *                source to it, in sorted label order
+     */
+    public void forEachTarget(String source, NeighborVisitor visitor) {
+        int v = id(source);
+        if (v >= 0) {
+            decode(outData, outOffsets, v, visitor);
+        }
+    }
+
+    /**
+     * Stream the source vertices with directed edges to a target vertex.
+     *
+     * @param target a label
+     * @param visitor receives each source and the weight of the edge from it
+     *                to target, in sorted label order
+     */
+    public void forEachSource(String target, NeighborVisitor visitor) {
+        int v = id(target);
+        if (v >= 0) {
+            decode(inData, inOffsets, v, visitor);
+        }
+    }
+
+    /**
+     * Get the weight of one edge, decoding only the source's target list up
+     * to the target, without building a map.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(String source, String target) {
+        int v = id(source);
+        int u = id(target);
+        if (v < 0 || u < 0) {
+            return 0;
+        }
+        int position = outOffsets[v];
+        int end = outOffsets[v + 1];
+        int neighbor = 0;
+        while (position < end) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = outData[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int weight = 0;
+            shift = 0;
+            do {
+                b = outData[position++];
+                weight |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            neighbor += gap;
+            if (neighbor >= u) {
+                return neighbor == u ? weight : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of bytes used to encode the adjacency lists.
+     *
+     * @return total length of the encoded target and source lists
+     */
+    public int encodedBytes() {
+        return outData.length + inData.length;
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return new AbstractSet<String>() {
+            @Override public boolean contains(Object o) {
+                return o instanceof String && id((String) o) >= 0;
+            }
+            @Override public Iterator<String> iterator() {
+                return Collections.unmodifiableList(Arrays.asList(labels)).iterator();
+            }
+            @Override public int size() {
+                return labels.length;
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        Map<String, Integer> sources = new HashMap<>();
+        forEachSource(target, sources::put);
+        return sources;
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        Map<String, Integer> targets = new HashMap<>();
+        forEachTarget(source, targets::put);
+        return targets;
+    }
+
+    @Override
+    public long estimatedHeapBytes() {
+        return HeapFootprint.compressedGraph(HeapFootprint.strings(Arrays.asList(labels)), labels.length,
+                outData.length, inData.length);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressedGraph with %d vertices in %d bytes",
+                labels.length, encodedBytes());
+    }
+}
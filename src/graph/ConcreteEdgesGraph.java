@@ -1,29 +1,51 @@
 package graph;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
 
 /**
  * An implementation of Graph using a list of edges and a set of vertices.
+ * 
+ * <p>Removing a vertex only records a tombstone; the edges of removed
+ * vertices stay in the edge list, hidden from every query, until a single
+ * pass over the list purges the edges of all tombstoned vertices at once.
+ * That pass runs when COMPACTION_THRESHOLD tombstones accumulate, when a
+ * tombstoned label is added again, or on request with compact() or
+ * compactInBackground(). Methods are synchronized so that a background
+ * compaction can run alongside other calls.
  */
-public class ConcreteEdgesGraph implements Graph<String> {
+public class ConcreteEdgesGraph implements Graph<String>, HeapFootprint.Measured {
+    
+    /** Number of tombstones that triggers compaction. */
+    public static final int COMPACTION_THRESHOLD = 64;
     
     private final Set<String> vertices = new HashSet<>();
-    private final List<Edge> edges = new ArrayList<>();
+    private List<Edge> edges = new ArrayList<>();
+    private final Set<String> removed = new HashSet<>();
+    private long modifications = 0;
     
     // Abstraction function:
     //   Represents a directed weighted graph where:
     //   - vertices represents the set of vertices in the graph
-    //   - edges represents the list of directed weighted edges between vertices
+    //   - edges represents the list of directed weighted edges between vertices,
+    //     except edges with an endpoint in removed, which are dead
+    //   - removed holds tombstones of removed vertices whose dead edges
+    //     have not yet been purged
+    //   - modifications counts changes to edges, so a background compaction
+    //     can tell whether its copy is stale
     
     // Representation invariant:
     //   - vertices is not null
     //   - edges is not null
     //   - no edge weight is negative
-    //   - all vertices mentioned in edges exist in vertices set
+    //   - all vertices mentioned in edges exist in vertices set or in removed
+    //   - vertices and removed are disjoint
     //   - no duplicate edges (same source and target)
     
     // Safety from rep exposure:
-    //   - all fields are private and final
+    //   - all fields are private, and all but edges and modifications final
     //   - vertices() returns an unmodifiable set
     //   - sources() and targets() return new maps
     
@@ -36,28 +58,40 @@ public class ConcreteEdgesGraph implements Graph<String> {
         assert edges != null;
         for (Edge edge : edges) {
             assert edge.getWeight() >= 0;
-            assert vertices.contains(edge.getSource());
-            assert vertices.contains(edge.getTarget());
+            assert vertices.contains(edge.getSource()) || removed.contains(edge.getSource());
+            assert vertices.contains(edge.getTarget()) || removed.contains(edge.getTarget());
+        }
+        for (String tombstone : removed) {
+            assert !vertices.contains(tombstone);
         }
     }
     
+    private boolean live(Edge edge) {
+        return removed.isEmpty()
+                || !(removed.contains(edge.getSource()) || removed.contains(edge.getTarget()));
+    }
+    
     @Override 
-    public boolean add(String vertex) {
+    public synchronized boolean add(String vertex) {
         if (vertex == null) return false;
+        if (removed.contains(vertex)) {
+            // purge the old edges before the label comes back to life
+            compact();
+        }
         boolean added = vertices.add(vertex);
         checkRep();
         return added;
     }
     
     @Override 
-    public int set(String source, String target, int weight) {
+    public synchronized int set(String source, String target, int weight) {
         if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative");
         
         // Add vertices if they don't exist
         add(source);
         add(target);
         
-        // Find existing edge
+        // Find existing edge; source and target are live, so it is too
         for (int i = 0; i < edges.size(); i++) {
             Edge edge = edges.get(i);
             if (edge.getSource().equals(source) && edge.getTarget().equals(target)) {
@@ -67,6 +101,7 @@ public class ConcreteEdgesGraph implements Graph<String> {
                 } else {
                     edges.set(i, new Edge(source, target, weight));
                 }
+                modifications++;
                 checkRep();
                 return oldWeight;
             }
@@ -75,35 +110,136 @@ public class ConcreteEdgesGraph implements Graph<String> {
         // No existing edge found
         if (weight != 0) {
             edges.add(new Edge(source, target, weight));
+            modifications++;
         }
         checkRep();
         return 0;
     }
     
     @Override 
-    public boolean remove(String vertex) {
-        if (!vertices.contains(vertex)) return false;
-        
-        // Remove all edges containing this vertex
-        edges.removeIf(edge -> 
-            edge.getSource().equals(vertex) || edge.getTarget().equals(vertex)
-        );
-        
-        vertices.remove(vertex);
+    public synchronized boolean remove(String vertex) {
+        if (!vertices.remove(vertex)) return false;
+        removed.add(vertex);
+        compactIfNeeded();
         checkRep();
         return true;
     }
     
+    /**
+     * Remove many vertices and all edges to or from them, in one pass over
+     * the edges at most.
+     * 
+     * @param labels labels of the vertices to remove; labels not in this
+     *               graph are ignored
+     * @return the number of vertices removed
+     */
+    public synchronized int removeAll(Collection<String> labels) {
+        int count = 0;
+        for (String vertex : labels) {
+            if (vertices.remove(vertex)) {
+                removed.add(vertex);
+                count++;
+            }
+        }
+        compactIfNeeded();
+        checkRep();
+        return count;
+    }
+    
+    /**
+     * Remove every vertex that satisfies a condition, and all edges to or
+     * from those vertices, in one pass over the vertices and at most one
+     * over the edges.
+     * 
+     * @param condition test of each vertex label; must not modify this graph
+     * @return the number of vertices removed
+     */
+    public synchronized int removeIf(Predicate<String> condition) {
+        int count = 0;
+        for (Iterator<String> it = vertices.iterator(); it.hasNext(); ) {
+            String vertex = it.next();
+            if (condition.test(vertex)) {
+                it.remove();
+                removed.add(vertex);
+                count++;
+            }
+        }
+        compactIfNeeded();
+        checkRep();
+        return count;
+    }
+    
+    private void compactIfNeeded() {
+        if (removed.size() >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+    
+    /**
+     * Purge the edges of all removed vertices now, in one pass over the
+     * edges.
+     */
+    public synchronized void compact() {
+        if (removed.isEmpty()) return;
+        edges.removeIf(edge -> !live(edge));
+        removed.clear();
+        modifications++;
+        checkRep();
+    }
+    
+    /**
+     * Purge the edges of the vertices removed so far on another thread.
+     * The edge list is copied without dead edges while other methods of this
+     * graph keep running, and the copy replaces the list only if no edge
+     * changed in the meantime; otherwise the tombstones are left for a later
+     * compaction.
+     * 
+     * @param executor executor to run the compaction on
+     * @return a future completed with true if the compacted list was swapped
+     *         in, false if it was stale or there was nothing to compact
+     */
+    public CompletableFuture<Boolean> compactInBackground(Executor executor) {
+        final List<Edge> snapshot;
+        final Set<String> tombstones;
+        final long version;
+        synchronized (this) {
+            if (removed.isEmpty()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            snapshot = new ArrayList<>(edges);
+            tombstones = new HashSet<>(removed);
+            version = modifications;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            List<Edge> compacted = new ArrayList<>(snapshot.size());
+            for (Edge edge : snapshot) {
+                if (!tombstones.contains(edge.getSource()) && !tombstones.contains(edge.getTarget())) {
+                    compacted.add(edge);
+                }
+            }
+            synchronized (this) {
+                if (modifications != version) {
+                    return false;
+                }
+                edges = compacted;
+                removed.removeAll(tombstones);
+                modifications++;
+                checkRep();
+                return true;
+            }
+        }, executor);
+    }
+    
     @Override 
-    public Set<String> vertices() {
+    public synchronized Set<String> vertices() {
         return Collections.unmodifiableSet(vertices);
     }
     
     @Override 
-    public Map<String, Integer> sources(String target) {
+    public synchronized Map<String, Integer> sources(String target) {
         Map<String, Integer> sources = new HashMap<>();
         for (Edge edge : edges) {
-            if (edge.getTarget().equals(target)) {
+            if (edge.getTarget().equals(target) && live(edge)) {
                 sources.put(edge.getSource(), edge.getWeight());
             }
         }
@@ -111,22 +247,34 @@ public class ConcreteEdgesGraph implements Graph<String> {
     }
     
     @Override 
-    public Map<String, Integer> targets(String source) {
+    public synchronized Map<String, Integer> targets(String source) {
         Map<String, Integer> targets = new HashMap<>();
         for (Edge edge : edges) {
-            if (edge.getSource().equals(source)) {
+            if (edge.getSource().equals(source) && live(edge)) {
                 targets.put(edge.getTarget(), edge.getWeight());
             }
         }
         return targets;
     }
     
+    /**
+     * Estimate the heap retained by this graph, including dead edges and
+     * tombstones that have not been compacted yet.
+     */
     @Override 
-    public String toString() {
+    public synchronized long estimatedHeapBytes() {
+        return HeapFootprint.concreteEdgesGraph(HeapFootprint.strings(vertices), vertices.size(), edges.size())
+                + HeapFootprint.hashSet(removed.size()) - HeapFootprint.hashSet(0) + HeapFootprint.strings(removed);
+    }
+    
+    @Override 
+    public synchronized String toString() {
         StringBuilder sb = new StringBuilder("Vertices: " + vertices.toString() + "\n");
         sb.append("Edges:\n");
         for (Edge edge : edges) {
-            sb.append(edge.toString()).append("\n");
+            if (live(edge)) {
+                sb.append(edge.toString()).append("\n");
+            }
         }
         return sb.toString();
     }
@@ -1,11 +1,12 @@
 package graph;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * An implementation of Graph using vertices that store their edges.
  */
-public class ConcreteVerticesGraph implements Graph<String> {
+public class ConcreteVerticesGraph implements Graph<String>, HeapFootprint.Measured {
     
     private final List<Vertex> vertices = new ArrayList<>();
     
@@ -91,6 +92,45 @@ public class ConcreteVerticesGraph implements Graph<String> {
         return found;
     }
     
+    /**
+     * Remove many vertices and all edges to or from them, in one pass over
+     * the vertices.
+     * 
+     * @param labels labels of the vertices to remove; labels not in this
+     *               graph are ignored
+     * @return the number of vertices removed
+     */
+    public int removeAll(Collection<String> labels) {
+        Set<String> doomed = new HashSet<>(labels);
+        return removeIf(doomed::contains);
+    }
+    
+    /**
+     * Remove every vertex that satisfies a condition, and all edges to or
+     * from those vertices, in a few passes over the vertices rather than
+     * one pass per removed vertex.
+     * 
+     * @param condition test of each vertex label; must not modify this graph
+     * @return the number of vertices removed
+     */
+    public int removeIf(Predicate<String> condition) {
+        Set<String> doomed = new HashSet<>();
+        for (Vertex v : vertices) {
+            if (condition.test(v.getLabel())) {
+                doomed.add(v.getLabel());
+            }
+        }
+        if (doomed.isEmpty()) {
+            return 0;
+        }
+        vertices.removeIf(v -> doomed.contains(v.getLabel()));
+        for (Vertex v : vertices) {
+            v.removeEdges(doomed);
+        }
+        checkRep();
+        return doomed.size();
+    }
+    
     @Override 
     public Set<String> vertices() {
         Set<String> result = new HashSet<>();
@@ -122,6 +162,23 @@ public class ConcreteVerticesGraph implements Graph<String> {
         return new HashMap<>();
     }
     
+    @Override 
+    public long estimatedHeapBytes() {
+        long labelBytes = 0;
+        int[] outDegrees = new int[vertices.size()];
+        int boxedWeights = 0;
+        for (int i = 0; i < vertices.size(); i++) {
+            Vertex v = vertices.get(i);
+            labelBytes += HeapFootprint.string(v.getLabel());
+            Map<String, Integer> targets = v.getTargets();
+            outDegrees[i] = targets.size();
+            for (int weight : targets.values()) {
+                boxedWeights += HeapFootprint.integer(weight) > 0 ? 1 : 0;
+            }
+        }
+        return HeapFootprint.concreteVerticesGraph(labelBytes, outDegrees, boxedWeights);
+    }
+    
     @Override 
     public String toString() {
         StringBuilder sb = new StringBuilder("Graph:\n");
@@ -187,6 +244,11 @@ class Vertex {
         checkRep();
     }
     
+    public void removeEdges(Set<String> targets) {
+        edges.keySet().removeAll(targets);
+        checkRep();
+    }
+    
     public Integer getEdgeWeight(String target) {
         return edges.get(target);
     }
@@ -0,0 +1,154 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * An implementation of Graph that keeps the targets and the sources of each
+ * vertex in hash maps, so finding a vertex, an edge or a weight takes
+ * constant expected time rather than time linear in the vertices or edges.
+ *
+ * <p>It takes more heap than ConcreteVerticesGraph, since every edge is
+ * stored under both of its endpoints.
+ */
+public class HashGraph implements Graph<String>, HeapFootprint.Measured {
+
+    private final Map<String, Map<String, Integer>> targets = new HashMap<>();
+    private final Map<String, Map<String, Integer>> sources = new HashMap<>();
+
+    // Abstraction function:
+    //   Represents the directed weighted graph whose vertices are the keys of
+    //   targets, with an edge from s to t of weight w iff
+    //   targets.get(s).get(t) == w
+
+    // Representation invariant:
+    //   - targets and sources have the same keys, none null
+    //   - targets.get(s).get(t) == w iff sources.get(t).get(s) == w, and
+    //     both maps hold the same Integer object
+    //   - all weights are positive
+
+    // Safety from rep exposure:
+    //   - all fields are private and final
+    //   - vertices() returns an unmodifiable view
+    //   - sources() and targets() return new maps
+
+    public HashGraph() {
+        checkRep();
+    }
+
+    // checks only what takes constant time, so that assertions do not make
+    // every operation linear
+    private void checkRep() {
+        assert targets.size() == sources.size();
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        if (vertex == null || targets.containsKey(vertex)) {
+            return false;
+        }
+        targets.put(vertex, new HashMap<>());
+        sources.put(vertex, new HashMap<>());
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative");
+        add(source);
+        add(target);
+        Integer old;
+        if (weight == 0) {
+            old = targets.get(source).remove(target);
+            sources.get(target).remove(source);
+        } else {
+            Integer boxed = weight;
+            old = targets.get(source).put(target, boxed);
+            sources.get(target).put(source, boxed);
+        }
+        checkRep();
+        return old != null ? old : 0;
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        Map<String, Integer> out = targets.remove(vertex);
+        if (out == null) {
+            return false;
+        }
+        for (String target : out.keySet()) {
+            sources.get(target).remove(vertex);
+        }
+        for (String source : sources.remove(vertex).keySet()) {
+            targets.get(source).remove(vertex);
+        }
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Get the weight of one edge without copying any adjacency.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(String source, String target) {
+        Map<String, Integer> out = targets.get(source);
+        Integer weight = out != null ? out.get(target) : null;
+        return weight != null ? weight : 0;
+    }
+
+    /**
+     * @return the number of edges, counted without copying
+     */
+    public int edgeCount() {
+        int edges = 0;
+        for (Map<String, Integer> out : targets.values()) {
+            edges += out.size();
+        }
+        return edges;
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return Collections.unmodifiableSet(targets.keySet());
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        Map<String, Integer> in = sources.get(target);
+        return in != null ? new HashMap<>(in) : new HashMap<>();
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        Map<String, Integer> out = targets.get(source);
+        return out != null ? new HashMap<>(out) : new HashMap<>();
+    }
+
+    @Override
+    public long estimatedHeapBytes() {
+        // graph: header, references targets, sources
+        long total = HeapFootprint.align(HeapFootprint.OBJECT_HEADER + 2 * HeapFootprint.REFERENCE)
+                + 2 * HeapFootprint.hashMap(targets.size()) + HeapFootprint.strings(targets.keySet());
+        for (String vertex : targets.keySet()) {
+            Map<String, Integer> out = targets.get(vertex);
+            total += HeapFootprint.hashMap(out.size()) + HeapFootprint.hashMap(sources.get(vertex).size());
+            for (int weight : out.values()) {
+                total += HeapFootprint.integer(weight);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Graph:\n");
+        for (Map.Entry<String, Map<String, Integer>> vertex : targets.entrySet()) {
+            sb.append(vertex.getKey()).append(" -> ").append(vertex.getValue()).append("\n");
+        }
+        return sb.toString();
+    }
+}
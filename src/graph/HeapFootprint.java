@@ -0,0 +1,215 @@
+package graph;
+
+import java.util.Map;
+
+/**
+ * Estimates of retained heap bytes for graphs and the JDK objects they are
+ * built from.
+ *
+ * <p>Estimates assume a 64-bit JVM with compressed references and class
+ * pointers (the default for heaps under 32 GB): 12-byte object headers,
+ * 16-byte array headers, 4-byte references, and sizes rounded up to
+ * multiples of 8. Strings are counted as Latin-1 compact strings on Java 9
+ * and later, and as char arrays on Java 8. Collections are assumed to have
+ * grown by insertion, so removals that leave spare capacity are not seen.
+ * A label shared by several structures of one graph is counted once.
+ */
+public final class HeapFootprint {
+
+    /**
+     * A graph or other structure that can estimate its own retained heap.
+     */
+    public interface Measured {
+
+        /**
+         * Estimate the heap retained by this object and everything it
+         * exclusively references.
+         *
+         * @return estimated bytes
+         */
+        long estimatedHeapBytes();
+    }
+
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+
+    private static final boolean COMPACT_STRINGS =
+            !System.getProperty("java.specification.version").startsWith("1.");
+
+    // HashMap: header, int size, modCount, threshold, float loadFactor,
+    // references table, entrySet, keySet, values
+    private static final long HASH_MAP = align(OBJECT_HEADER + 4 * 4 + 4 * REFERENCE);
+    // HashMap.Node: int hash, references key, value, next
+    private static final long HASH_NODE = align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+    private static final long HASH_SET = align(OBJECT_HEADER + REFERENCE) + HASH_MAP;
+    // ArrayList: header, int size, modCount, reference elementData
+    private static final long ARRAY_LIST = align(OBJECT_HEADER + 2 * 4 + REFERENCE);
+    private static final long INTEGER = align(OBJECT_HEADER + 4);
+
+    private HeapFootprint() {
+        throw new AssertionError("HeapFootprint is not instantiable");
+    }
+
+    /**
+     * @param bytes unaligned size
+     * @return bytes rounded up to a multiple of 8
+     */
+    public static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * @param length number of elements
+     * @param elementBytes bytes per element
+     * @return size of an array
+     */
+    public static long array(long length, int elementBytes) {
+        return align(ARRAY_HEADER + length * elementBytes);
+    }
+
+    /**
+     * @param string a string
+     * @return size of the string and its character array
+     */
+    public static long string(String string) {
+        boolean latin1 = COMPACT_STRINGS;
+        for (int i = 0; latin1 && i < string.length(); i++) {
+            latin1 = string.charAt(i) <= 0xFF;
+        }
+        // header, reference value, int hash, and on Java 9+ coder and hashIsZero
+        return align(OBJECT_HEADER + REFERENCE + 4 + (COMPACT_STRINGS ? 2 : 0))
+                + array(string.length(), latin1 ? 1 : 2);
+    }
+
+    /**
+     * @param strings strings
+     * @return total size of the strings
+     */
+    public static long strings(Iterable<String> strings) {
+        long total = 0;
+        for (String s : strings) {
+            total += string(s);
+        }
+        return total;
+    }
+
+    /**
+     * @param value an int
+     * @return size of a boxed Integer holding value; 0 if it is cached
+     */
+    public static long integer(int value) {
+        return value >= -128 && value <= 127 ? 0 : INTEGER;
+    }
+
+    /**
+     * @param entries number of entries put into a new HashMap
+     * @return size of the map, its table and nodes, not counting keys or
+     *         values
+     */
+    public static long hashMap(int entries) {
+        if (entries == 0) {
+            return HASH_MAP;
+        }
+        long capacity = 16;
+        while (entries > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        return HASH_MAP + array(capacity, REFERENCE) + entries * HASH_NODE;
+    }
+
+    /**
+     * @param elements number of elements added to a new HashSet
+     * @return size of the set, not counting the elements
+     */
+    public static long hashSet(int elements) {
+        return HASH_SET - HASH_MAP + hashMap(elements);
+    }
+
+    /**
+     * @param elements number of elements appended to a new ArrayList
+     * @return size of the list and its array, not counting the elements
+     */
+    public static long arrayList(long elements) {
+        if (elements == 0) {
+            return ARRAY_LIST;
+        }
+        long capacity = 10;
+        while (capacity < elements) {
+            capacity += capacity >> 1;
+        }
+        return ARRAY_LIST + array(capacity, REFERENCE);
+    }
+
+    /**
+     * Estimate the footprint of a ConcreteEdgesGraph with no tombstones.
+     *
+     * @param labelBytes total size of the vertex labels
+     * @param vertices number of vertices
+     * @param edges number of edges
+     * @return estimated bytes
+     */
+    public static long concreteEdgesGraph(long labelBytes, int vertices, int edges) {
+        long edge = align(OBJECT_HEADER + 2 * REFERENCE + 4);
+        // references vertices, edges, removed and long modifications
+        return align(OBJECT_HEADER + 3 * REFERENCE + 8) + hashSet(vertices) + labelBytes
+                + arrayList(edges) + edges * edge + hashSet(0);
+    }
+
+    /**
+     * Estimate the footprint of a ConcreteVerticesGraph.
+     *
+     * @param labelBytes total size of the vertex labels
+     * @param outDegrees out-degree of each vertex
+     * @param boxedWeights number of edge weights too large for the Integer
+     *                     cache
+     * @return estimated bytes
+     */
+    public static long concreteVerticesGraph(long labelBytes, int[] outDegrees, int boxedWeights) {
+        long vertex = align(OBJECT_HEADER + 2 * REFERENCE);
+        long total = align(OBJECT_HEADER + REFERENCE) + arrayList(outDegrees.length) + labelBytes
+                + boxedWeights * INTEGER;
+        for (int degree : outDegrees) {
+            total += vertex + hashMap(degree);
+        }
+        return total;
+    }
+
+    /**
+     * Estimate the footprint of a CompressedGraph.
+     *
+     * @param labelBytes total size of the vertex labels
+     * @param vertices number of vertices
+     * @param outBytes length of the encoded out-lists
+     * @param inBytes length of the encoded in-lists
+     * @return estimated bytes
+     */
+    public static long compressedGraph(long labelBytes, int vertices, long outBytes, long inBytes) {
+        return align(OBJECT_HEADER + 5 * REFERENCE) + array(vertices, REFERENCE) + labelBytes
+                + 2 * array(vertices + 1, 4) + array(outBytes, 1) + array(inBytes, 1);
+    }
+
+    /**
+     * Estimate the heap retained by a graph.
+     *
+     * @param graph a graph
+     * @return its own estimate if it is Measured, otherwise an estimate as if
+     *         it were a ConcreteVerticesGraph
+     */
+    public static long of(Graph<String> graph) {
+        if (graph instanceof Measured) {
+            return ((Measured) graph).estimatedHeapBytes();
+        }
+        int[] outDegrees = new int[graph.vertices().size()];
+        int boxed = 0;
+        int v = 0;
+        for (String vertex : graph.vertices()) {
+            Map<String, Integer> targets = graph.targets(vertex);
+            outDegrees[v++] = targets.size();
+            for (int weight : targets.values()) {
+                boxed += integer(weight) > 0 ? 1 : 0;
+            }
+        }
+        return concreteVerticesGraph(strings(graph.vertices()), outDegrees, boxed);
+    }
+}
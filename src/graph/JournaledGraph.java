@@ -0,0 +1,452 @@
+package graph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A durable Graph that keeps its vertices and edges in an in-memory graph
+ * and records every mutation in an append-only journal.
+ *
+ * <p>The journal lives in a directory holding a checkpoint file
+ * {@code snapshot} and a log file {@code journal-<generation>}. Every call
+ * to set, and every call to add or remove that changes the graph, is
+ * encoded into a batch; a batch is written to the
+ * log as one checksummed frame and forced to disk with a single fsync when
+ * it reaches the batch size, on {@link #commit()}, and on {@link #close()}.
+ * Every checkpoint interval mutations, the whole graph is written to a new
+ * snapshot, which is atomically renamed into place and starts a new log
+ * generation; the directory itself is forced after the rename and after
+ * each new log is created.
+ *
+ * <p>Opening a directory recovers the graph by loading the snapshot and
+ * replaying the log of the snapshot's generation, stopping at the first
+ * torn or corrupt frame. Mutations in a batch that was never committed are
+ * lost.
+ *
+ * <p>The graph methods throw UncheckedIOException if the journal cannot be
+ * written.
+ */
+public class JournaledGraph implements Graph<String>, Closeable, HeapFootprint.Measured {
+
+    /** Default number of mutations per group commit. */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    /** Default number of mutations between checkpoints. */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1 << 20;
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final int FRAME_HEADER = 8;
+
+    private static final int ADD = 1;
+    private static final int SET = 2;
+    private static final int REMOVE = 3;
+
+    private final Graph<String> graph;
+    private final Path directory;
+    private final int batchSize;
+    private final int checkpointInterval;
+    private final VarintWriter batch = new VarintWriter();
+    private int batched = 0;
+    private int sinceCheckpoint = 0;
+    private long generation;
+    private FileChannel journal;
+
+    // Abstraction function:
+    //   Represents graph, which equals the snapshot in directory with the
+    //   frames of journal-<generation> and then the mutations encoded in
+    //   batch applied
+
+    // Representation invariant:
+    //   - graph, directory, batch are not null
+    //   - batchSize >= 1, checkpointInterval >= 1
+    //   - 0 <= batched < batchSize, and batch encodes exactly batched mutations
+    //   - journal is open unless the graph has been closed
+
+    // Safety from rep exposure:
+    //   - all fields are private
+    //   - graph is only reachable through this object once recovered
+    //   - vertices(), sources() and targets() return the delegate's results,
+    //     which the Graph spec already requires to be safe
+
+    /**
+     * Open a journal directory with the default batch size and checkpoint
+     * interval.
+     *
+     * @param directory directory holding the journal; created if missing
+     * @param empty an empty graph to recover into and then use as storage;
+     *              it must not be used by the caller afterwards
+     * @throws IOException if the journal cannot be read or created
+     */
+    public JournaledGraph(File directory, Graph<String> empty) throws IOException {
+        this(directory, empty, DEFAULT_BATCH_SIZE, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Open a journal directory.
+     *
+     * @param directory directory holding the journal; created if missing
+     * @param empty an empty graph to recover into and then use as storage;
+     *              it must not be used by the caller afterwards
+     * @param batchSize positive number of mutations per group commit
+     * @param checkpointInterval positive number of mutations between
+     *                           checkpoints
+     * @throws IOException if the journal cannot be read or created
+     */
+    public JournaledGraph(File directory, Graph<String> empty, int batchSize,
+            int checkpointInterval) throws IOException {
+        if (!empty.vertices().isEmpty()) {
+            throw new IllegalArgumentException("Graph to recover into must be empty");
+        }
+        if (batchSize < 1 || checkpointInterval < 1) {
+            throw new IllegalArgumentException("Batch size and checkpoint interval must be positive");
+        }
+        this.graph = empty;
+        this.directory = directory.toPath();
+        this.batchSize = batchSize;
+        this.checkpointInterval = checkpointInterval;
+        Files.createDirectories(this.directory);
+        recover();
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert graph != null;
+        assert batchSize >= 1 && checkpointInterval >= 1;
+        assert batched >= 0 && batched < batchSize;
+        assert batched > 0 || batch.size() == 0;
+    }
+
+    private Path journalPath(long gen) {
+        return directory.resolve(JOURNAL_PREFIX + gen);
+    }
+
+    private void recover() throws IOException {
+        generation = 0;
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(Long.BYTES);
+                if (!readFully(channel, header)) {
+                    throw new IOException("Corrupt journal snapshot " + snapshot);
+                }
+                header.flip();
+                generation = header.getLong();
+                if (replay(channel) < channel.size()) {
+                    throw new IOException("Corrupt journal snapshot " + snapshot);
+                }
+            }
+        }
+        journal = FileChannel.open(journalPath(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = replay(journal);
+        if (valid < journal.size()) {
+            // discard a frame torn by a crash
+            journal.truncate(valid);
+            journal.force(true);
+        }
+        journal.position(valid);
+        // the log may have just been created
+        forceDirectory();
+        deleteStaleJournals();
+    }
+
+    /**
+     * Force the directory's entries to disk, so that files created or
+     * renamed in it survive a crash.
+     */
+    private void forceDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // some platforms, such as Windows, cannot open a directory; there
+            // the rename and create are as durable as the system makes them
+        }
+    }
+
+    private void deleteStaleJournals() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*")) {
+            for (Path file : files) {
+                if (!file.equals(journalPath(generation))) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the frames read from the channel's current position.
+     *
+     * @return the position just after the last complete, valid frame
+     */
+    private long replay(FileChannel channel) throws IOException {
+        long valid = channel.position();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        while (true) {
+            header.clear();
+            if (!readFully(channel, header)) {
+                return valid;
+            }
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || length > channel.size() - channel.position()) {
+                return valid;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            if (!readFully(channel, payload)) {
+                return valid;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                return valid;
+            }
+            payload.flip();
+            apply(payload);
+            valid = channel.position();
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void apply(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            int op = readVarint(data);
+            String source = readString(data);
+            switch (op) {
+            case ADD:
+                graph.add(source);
+                break;
+            case SET:
+                String target = readString(data);
+                graph.set(source, target, readVarint(data));
+                break;
+            case REMOVE:
+                graph.remove(source);
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal operation " + op);
+            }
+        }
+    }
+
+    private static int readVarint(ByteBuffer data) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static String readString(ByteBuffer data) {
+        int length = readVarint(data);
+        String value = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+        data.position(data.position() + length);
+        return value;
+    }
+
+    private static void writeString(VarintWriter out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeFrame(FileChannel channel, VarintWriter payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payload.size());
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        header.putInt(payload.size()).putInt((int) crc.getValue()).flip();
+        ByteBuffer body = ByteBuffer.wrap(payload.array(), 0, payload.size());
+        ByteBuffer[] frame = { header, body };
+        while (body.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private void log(int op, String source, String target, int weight) {
+        if (journal == null) {
+            throw new IllegalStateException("JournaledGraph is closed");
+        }
+        batch.write(op);
+        writeString(batch, source);
+        if (op == SET) {
+            writeString(batch, target);
+            batch.write(weight);
+        }
+        batched++;
+        sinceCheckpoint++;
+        if (batched >= batchSize) {
+            try {
+                commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Write and fsync all mutations made so far, and take a checkpoint if the
+     * checkpoint interval has passed.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public void commit() throws IOException {
+        if (batched > 0) {
+            writeFrame(journal, batch);
+            journal.force(false);
+            batch.clear();
+            batched = 0;
+        }
+        if (sinceCheckpoint >= checkpointInterval) {
+            checkpoint();
+        }
+        checkRep();
+    }
+
+    /**
+     * Write the whole graph to a new snapshot and start a new, empty log.
+     *
+     * @throws IOException if the snapshot or log cannot be written
+     */
+    public void checkpoint() throws IOException {
+        if (batched > 0) {
+            writeFrame(journal, batch);
+            batch.clear();
+            batched = 0;
+        }
+        long next = generation + 1;
+        VarintWriter state = new VarintWriter();
+        for (String vertex : graph.vertices()) {
+            state.write(ADD);
+            writeString(state, vertex);
+        }
+        for (String source : graph.vertices()) {
+            for (Map.Entry<String, Integer> edge : graph.targets(source).entrySet()) {
+                state.write(SET);
+                writeString(state, source);
+                writeString(state, edge.getKey());
+                state.write(edge.getValue());
+            }
+        }
+        Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Long.BYTES);
+            header.putLong(next).flip();
+            channel.write(header);
+            writeFrame(channel, state);
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory();
+
+        FileChannel previous = journal;
+        journal = FileChannel.open(journalPath(next), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        forceDirectory();
+        previous.close();
+        Files.deleteIfExists(journalPath(generation));
+        generation = next;
+        sinceCheckpoint = 0;
+        checkRep();
+    }
+
+    /**
+     * Commit pending mutations and close the journal. The graph cannot be
+     * modified afterwards.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            commit();
+            journal.close();
+            journal = null;
+        }
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        if (vertex == null || !graph.add(vertex)) {
+            return false;
+        }
+        log(ADD, vertex, null, 0);
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative");
+        int previous = graph.set(source, target, weight);
+        log(SET, source, target, weight);
+        checkRep();
+        return previous;
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        if (!graph.remove(vertex)) {
+            return false;
+        }
+        log(REMOVE, vertex, null, 0);
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return graph.vertices();
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        return graph.sources(target);
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        return graph.targets(source);
+    }
+
+    /**
+     * Estimate the heap retained by the delegate graph and the uncommitted
+     * batch; file buffers are not counted.
+     */
+    @Override
+    public long estimatedHeapBytes() {
+        return HeapFootprint.of(graph) + HeapFootprint.array(batch.array().length, 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JournaledGraph at %s, generation %d, %d uncommitted:%n%s",
+                directory, generation, batched, graph);
+    }
+}
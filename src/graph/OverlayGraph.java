@@ -0,0 +1,254 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * A mutable view of a shared read-only base graph with private changes
+ * layered on top.
+ *
+ * <p>The weight of an edge is the base weight plus the weight in a small
+ * delta graph, so adding to a weight only touches the delta. Removing a
+ * vertex records a tombstone that hides it and all of its base edges;
+ * lowering an edge below its base weight records a tombstone that hides
+ * that base edge.
+ *
+ * <p>The base is a CompressedGraph, which answers whether it has a vertex
+ * and the weight of an edge in place, so an overlay never copies the base's
+ * vertices or adjacency lists; one compressed base can be shared by any
+ * number of overlays. The delta is a HashGraph, so private changes take
+ * constant expected time.
+ */
+public class OverlayGraph implements Graph<String>, HeapFootprint.Measured {
+
+    private final CompressedGraph base;
+    private final Set<String> baseVertices;
+    private final HashGraph delta = new HashGraph();
+    private final Set<String> removedVertices = new HashSet<>();
+    private final Map<String, Set<String>> hiddenEdges = new HashMap<>();
+
+    // Abstraction function:
+    //   Represents the graph whose vertices are the vertices of delta plus
+    //   the vertices of base not in removedVertices, and where the edge from
+    //   s to t has weight delta(s, t) + base(s, t), counting the base weight
+    //   only if neither s nor t is in removedVertices and t is not in
+    //   hiddenEdges.get(s)
+
+    // Representation invariant:
+    //   - base, baseVertices, delta, removedVertices, hiddenEdges not null
+    //   - removedVertices is a subset of baseVertices
+    //   - hiddenEdges only names edges of base
+
+    // Safety from rep exposure:
+    //   - all fields are private and final
+    //   - base is read-only, and baseVertices is its unmodifiable view
+    //   - vertices() returns an unmodifiable view
+    //   - sources() and targets() return new maps
+
+    /**
+     * Make an overlay with no changes yet.
+     *
+     * @param base the shared graph to layer changes over; it is only read
+     */
+    public OverlayGraph(CompressedGraph base) {
+        this.base = base;
+        this.baseVertices = base.vertices();
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert base != null && baseVertices != null && delta != null;
+        assert baseVertices.containsAll(removedVertices);
+    }
+
+    private boolean inBase(String vertex) {
+        return baseVertices.contains(vertex) && !removedVertices.contains(vertex);
+    }
+
+    private boolean visible(String vertex) {
+        return inBase(vertex) || delta.vertices().contains(vertex);
+    }
+
+    private boolean baseEdgeVisible(String source, String target) {
+        if (removedVertices.contains(source) || removedVertices.contains(target)) {
+            return false;
+        }
+        Set<String> hidden = hiddenEdges.get(source);
+        return hidden == null || !hidden.contains(target);
+    }
+
+    private int baseWeight(String source, String target) {
+        if (!inBase(source) || !baseEdgeVisible(source, target)) {
+            return 0;
+        }
+        return base.weight(source, target);
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        if (vertex == null || visible(vertex)) {
+            return false;
+        }
+        boolean added = delta.add(vertex);
+        checkRep();
+        return added;
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative");
+        int inherited = baseWeight(source, target);
+        int old = inherited + delta.weight(source, target);
+        // like the concrete graphs, setting any edge adds its endpoints
+        if (!visible(source)) delta.add(source);
+        if (!visible(target)) delta.add(target);
+        if (weight == 0 && old == 0) {
+            checkRep();
+            return 0;
+        }
+        if (weight >= inherited) {
+            delta.set(source, target, weight - inherited);
+        } else {
+            // the new weight is below the shared one: hide the base edge
+            hiddenEdges.computeIfAbsent(source, s -> new HashSet<>()).add(target);
+            delta.set(source, target, weight);
+        }
+        checkRep();
+        return old;
+    }
+
+    /**
+     * Add to the weight of an edge, adding its endpoints if absent. Unlike
+     * reading the weight and setting it back, which would copy the shared
+     * base weight into the delta, only the amount is recorded privately.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param amount nonnegative amount to add to the weight
+     * @return the previous weight of the edge, or zero if there was none
+     */
+    public int increment(String source, String target, int amount) {
+        if (amount < 0) throw new IllegalArgumentException("Amount must be non-negative");
+        int inherited = baseWeight(source, target);
+        int mine = delta.weight(source, target);
+        if (!visible(source)) delta.add(source);
+        if (!visible(target)) delta.add(target);
+        if (amount > 0) {
+            delta.set(source, target, mine + amount);
+        }
+        checkRep();
+        return inherited + mine;
+    }
+
+    /**
+     * @return the number of edges with a private weight in the delta
+     */
+    int privateEdges() {
+        return delta.edgeCount();
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        if (!visible(vertex)) {
+            return false;
+        }
+        if (baseVertices.contains(vertex)) {
+            removedVertices.add(vertex);
+            hiddenEdges.remove(vertex);
+        }
+        delta.remove(vertex);
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return new AbstractSet<String>() {
+            @Override public boolean contains(Object o) {
+                return o instanceof String && visible((String) o);
+            }
+            @Override public Iterator<String> iterator() {
+                List<String> own = new ArrayList<>();
+                for (String v : delta.vertices()) {
+                    if (!inBase(v)) own.add(v);
+                }
+                Iterator<String> shared = baseVertices.iterator();
+                Iterator<String> added = own.iterator();
+                return new Iterator<String>() {
+                    private String next = advance();
+
+                    private String advance() {
+                        while (shared.hasNext()) {
+                            String v = shared.next();
+                            if (!removedVertices.contains(v)) return v;
+                        }
+                        return added.hasNext() ? added.next() : null;
+                    }
+
+                    @Override public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override public String next() {
+                        if (next == null) throw new NoSuchElementException();
+                        String result = next;
+                        next = advance();
+                        return result;
+                    }
+                };
+            }
+            @Override public int size() {
+                int size = 0;
+                for (Iterator<String> it = iterator(); it.hasNext(); it.next()) {
+                    size++;
+                }
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        Map<String, Integer> sources = delta.sources(target);
+        if (inBase(target)) {
+            for (Map.Entry<String, Integer> edge : base.sources(target).entrySet()) {
+                if (baseEdgeVisible(edge.getKey(), target)) {
+                    sources.merge(edge.getKey(), edge.getValue(), Integer::sum);
+                }
+            }
+        }
+        return sources;
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        Map<String, Integer> targets = delta.targets(source);
+        if (inBase(source)) {
+            for (Map.Entry<String, Integer> edge : base.targets(source).entrySet()) {
+                if (baseEdgeVisible(source, edge.getKey())) {
+                    targets.merge(edge.getKey(), edge.getValue(), Integer::sum);
+                }
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Estimate the heap retained by the private layers of this overlay: the
+     * delta and the tombstones. The shared base graph and its labels are not
+     * counted.
+     */
+    @Override
+    public long estimatedHeapBytes() {
+        long total = HeapFootprint.of(delta) + HeapFootprint.hashSet(removedVertices.size()) + HeapFootprint.hashMap(hiddenEdges.size());
+        for (Set<String> hidden : hiddenEdges.values()) {
+            total += HeapFootprint.hashSet(hidden.size());
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OverlayGraph with %d removed vertices and %d hidden edge sources over%n%s%nDelta:%n%s",
+                removedVertices.size(), hiddenEdges.size(), base, delta);
+    }
+}
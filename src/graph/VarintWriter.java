@@ -0,0 +1,58 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that writes unsigned LEB128 varints.
+ */
+class VarintWriter {
+    private byte[] bytes = new byte[64];
+    private int size = 0;
+
+    // Abstraction function:
+    //   Represents the byte sequence bytes[0 .. size)
+
+    // Representation invariant:
+    //   - 0 <= size <= bytes.length
+
+    // Safety from rep exposure:
+    //   - all fields are private
+    //   - toByteArray returns a copy; array() deliberately shares the
+    //     buffer with callers in this package, for writing it out
+
+    public void write(int value) {
+        if (value < 0) throw new IllegalArgumentException("Value must be non-negative");
+        if (size + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    public void writeBytes(byte[] values) {
+        if (size + values.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + values.length));
+        }
+        System.arraycopy(values, 0, bytes, size, values.length);
+        size += values.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+}
@@ -0,0 +1,240 @@
+package graph.algorithms;
+
+import graph.Graph;
+import java.util.*;
+
+/**
+ * Finds bridges of several words between two vertices of a graph: the
+ * intermediate vertices of a path from a source to a target.
+ *
+ * <p>A bridge with fewer words is always preferred; among bridges with the
+ * fewest words, the one whose path has the greatest total edge weight is
+ * chosen. The search is bidirectional: layers of targets are expanded
+ * forward from the source and layers of sources backward from the target,
+ * always growing the side whose frontier has fewer edges to follow, so a
+ * hub on one side is not expanded while the other side is still cheap. It
+ * stops at the first layer where the two sides meet, when the bridge would
+ * exceed the word limit, or when the time budget runs out.
+ *
+ * <p>The graph is read as the search goes, through targets() and sources()
+ * of the vertices it reaches, so a search sees the graph as it is now and
+ * costs time and memory in proportion to the part of the graph it
+ * explores, never to the size of the graph. The clock is checked before
+ * reading each vertex's neighbors, so a graph that is slow to read, such as
+ * one loaded lazily from disk, still stops near the budget. Safe for use
+ * by multiple threads if the graph is.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class BridgeSearch<L> {
+
+    // check the clock before each layer, before reading each vertex's
+    // neighbors, and once per this many edges followed
+    private static final int CLOCK_INTERVAL = 256;
+
+    private final Graph<L> graph;
+
+    // Abstraction function:
+    //   Represents bridge queries over graph
+
+    // Representation invariant:
+    //   - graph is not null
+
+    // Safety from rep exposure:
+    //   - graph is private and final, and only read
+
+    /**
+     * How one side of a search reached a vertex.
+     */
+    private static final class Reached<L> {
+        private final int distance;
+        private long score;
+        private L parent;
+
+        private Reached(int distance, long score, L parent) {
+            this.distance = distance;
+            this.score = score;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * One side of a search: the vertices it reached, and the neighbors, in
+     * its direction, of the vertices on its frontier.
+     */
+    private final class Side {
+        private final boolean forwards;
+        private final Map<L, Reached<L>> reached = new HashMap<>();
+        private Map<L, Map<L, Integer>> frontier = new LinkedHashMap<>();
+        private long frontierEdges;
+        private int depth;
+
+        private Side(boolean forwards, L start) {
+            this.forwards = forwards;
+            reached.put(start, new Reached<>(0, 0, null));
+            Map<L, Integer> neighbors = neighbors(start);
+            frontier.put(start, neighbors);
+            frontierEdges = neighbors.size();
+        }
+
+        private Map<L, Integer> neighbors(L v) {
+            return forwards ? graph.targets(v) : graph.sources(v);
+        }
+    }
+
+    /**
+     * The best meeting of the two sides found so far, by forward and
+     * backward vertex.
+     */
+    private final class Meeting {
+        private L forward;
+        private L backward;
+    }
+
+    /**
+     * Prepare to search a graph.
+     *
+     * @param graph the graph to search; it is only read
+     */
+    public BridgeSearch(Graph<L> graph) {
+        this.graph = graph;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert graph != null;
+    }
+
+    /**
+     * Find the best bridge between two vertices.
+     *
+     * @param source label of the first vertex
+     * @param target label of the last vertex
+     * @param maxWords positive maximum number of words in the bridge
+     * @param budgetNanos time after which to give up, in nanoseconds
+     * @return the labels of the intermediate vertices of the path, in order,
+     *         with no more than maxWords elements and neither source nor
+     *         target among them; empty if there is no such path, source or
+     *         target is not in the graph, or the budget ran out first
+     */
+    public List<L> bridge(L source, L target, int maxWords, long budgetNanos) {
+        if (maxWords < 1) {
+            throw new IllegalArgumentException("Bridge must allow at least one word");
+        }
+        if (source == null || target == null || source.equals(target)) {
+            return Collections.emptyList();
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        if (System.nanoTime() - deadline >= 0) {
+            return Collections.emptyList();
+        }
+        // a vertex not in the graph has no neighbors, so its side never grows
+        Side forward = new Side(true, source);
+        Side backward = new Side(false, target);
+        Meeting meeting = new Meeting();
+        int maxEdges = maxWords + 1;
+        while (forward.depth + backward.depth < maxEdges
+                && !forward.frontier.isEmpty() && !backward.frontier.isEmpty()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return Collections.emptyList();
+            }
+            int result = forward.frontierEdges <= backward.frontierEdges
+                    ? expand(forward, backward, target, meeting, deadline)
+                    : expand(backward, forward, source, meeting, deadline);
+            if (result == TIMED_OUT) {
+                return Collections.emptyList();
+            }
+            if (result == MET) {
+                return path(forward, backward, meeting);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static final int MET = 1;
+    private static final int NOT_MET = 0;
+    private static final int TIMED_OUT = -1;
+
+    /**
+     * Grow one side of the search by a layer. An edge from the frontier to
+     * a vertex the other side has reached completes a path; the best such
+     * path of at least two edges is recorded in meeting.
+     *
+     * @param excluded the end vertex of the other side, which paths may
+     *                 reach but not pass through
+     * @return MET, NOT_MET, or TIMED_OUT
+     */
+    private int expand(Side side, Side other, L excluded, Meeting meeting, long deadline) {
+        int depth = side.depth + 1;
+        Map<L, Map<L, Integer>> next = new LinkedHashMap<>();
+        long nextEdges = 0;
+        int followed = 0;
+        int shortest = Integer.MAX_VALUE;
+        long best = -1;
+        for (Map.Entry<L, Map<L, Integer>> vertex : side.frontier.entrySet()) {
+            L v = vertex.getKey();
+            long base = side.reached.get(v).score;
+            for (Map.Entry<L, Integer> edge : vertex.getValue().entrySet()) {
+                if (++followed % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) {
+                    return TIMED_OUT;
+                }
+                L u = edge.getKey();
+                long score = base + edge.getValue();
+                Reached<L> there = other.reached.get(u);
+                if (there != null) {
+                    int length = depth + there.distance;
+                    long total = score + there.score;
+                    if (length >= 2 && (length < shortest || (length == shortest && total > best))) {
+                        shortest = length;
+                        best = total;
+                        meeting.forward = side.forwards ? v : u;
+                        meeting.backward = side.forwards ? u : v;
+                    }
+                }
+                if (u.equals(excluded)) {
+                    continue;
+                }
+                Reached<L> here = side.reached.get(u);
+                if (here == null) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        return TIMED_OUT;
+                    }
+                    side.reached.put(u, new Reached<>(depth, score, v));
+                    Map<L, Integer> neighbors = side.neighbors(u);
+                    next.put(u, neighbors);
+                    nextEdges += neighbors.size();
+                } else if (here.distance == depth && score > here.score) {
+                    here.score = score;
+                    here.parent = v;
+                }
+            }
+        }
+
+        side.frontier = next;
+        side.frontierEdges = nextEdges;
+        side.depth = depth;
+        return shortest < Integer.MAX_VALUE ? MET : NOT_MET;
+    }
+
+    /**
+     * @return the labels strictly between the two ends on the path that
+     *         follows forward parents back from meeting.forward and backward
+     *         parents on from meeting.backward
+     */
+    private List<L> path(Side forward, Side backward, Meeting meeting) {
+        List<L> path = new ArrayList<>();
+        for (L v = meeting.forward; forward.reached.get(v).parent != null; v = forward.reached.get(v).parent) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        for (L v = meeting.backward; backward.reached.get(v).parent != null; v = backward.reached.get(v).parent) {
+            path.add(v);
+        }
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BridgeSearch over %s", graph);
+    }
+}
@@ -0,0 +1,277 @@
+package graph.algorithms;
+
+import graph.Graph;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Multi-hop algorithms over graphs: breadth-first reachability, shortest
+ * paths and widest paths.
+ *
+ * <p>Every algorithm runs over an {@link IndexedGraph} snapshot using int
+ * vertex ids, primitive arrays for per-vertex state and a primitive binary
+ * heap, so no labels or weights are boxed while searching. The overloads
+ * taking a {@link Graph} build the snapshot first; callers running many
+ * queries should build one snapshot and reuse it.
+ */
+public final class GraphAlgorithms {
+
+    /** Distance reported for vertices that cannot be reached. */
+    public static final int UNREACHABLE = -1;
+
+    // frontiers smaller than this are expanded on the calling thread
+    private static final int PARALLEL_FRONTIER = 1024;
+
+    private GraphAlgorithms() {
+        throw new AssertionError("GraphAlgorithms is not instantiable");
+    }
+
+    /**
+     * Find the vertices reachable from a vertex.
+     *
+     * @param <L> type of vertex labels
+     * @param graph a graph
+     * @param source a label
+     * @return the labels of all vertices reachable from source, including
+     *         source itself; empty if source is not in graph
+     */
+    public static <L> Set<L> reachable(Graph<L> graph, L source) {
+        IndexedGraph<L> indexed = new IndexedGraph<>(graph);
+        Set<L> result = new HashSet<>();
+        int s = indexed.id(source);
+        if (s < 0) {
+            return result;
+        }
+        int[] distances = bfs(indexed, s);
+        for (int v = 0; v < distances.length; v++) {
+            if (distances[v] != UNREACHABLE) {
+                result.add(indexed.label(v));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count the fewest edges from a vertex to every vertex.
+     *
+     * @param <L> type of vertex labels
+     * @param graph a graph snapshot
+     * @param source a vertex id in [0, graph.size())
+     * @return an array where element v is the number of edges on a shortest
+     *         path from source to v, or UNREACHABLE
+     */
+    public static <L> int[] bfs(IndexedGraph<L> graph, int source) {
+        int[] distances = new int[graph.size()];
+        Arrays.fill(distances, UNREACHABLE);
+        int[] queue = new int[graph.size()];
+        int head = 0;
+        int tail = 0;
+        distances[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int i = graph.outOffsets[v]; i < graph.outOffsets[v + 1]; i++) {
+                int u = graph.outTargets[i];
+                if (distances[u] == UNREACHABLE) {
+                    distances[u] = distances[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Count the fewest edges from a vertex to every vertex, expanding large
+     * frontiers in parallel on the common fork-join pool.
+     *
+     * @param <L> type of vertex labels
+     * @param graph a graph snapshot
+     * @param source a vertex id in [0, graph.size())
+     * @return the same distances as {@link #bfs(IndexedGraph, int)}
+     */
+    public static <L> int[] parallelBfs(IndexedGraph<L> graph, int source) {
+        AtomicIntegerArray distances = new AtomicIntegerArray(graph.size());
+        for (int v = 0; v < graph.size(); v++) {
+            distances.lazySet(v, UNREACHABLE);
+        }
+        distances.set(source, 0);
+        int[] frontier = { source };
+        for (int level = 1; frontier.length > 0; level++) {
+            if (frontier.length < PARALLEL_FRONTIER) {
+                frontier = expand(graph, distances, frontier, 0, frontier.length, level);
+            } else {
+                int chunks = Math.min(frontier.length / (PARALLEL_FRONTIER / 4),
+                        Runtime.getRuntime().availableProcessors() * 4);
+                int[] current = frontier;
+                int depth = level;
+                int[][] parts = new int[chunks][];
+                IntStream.range(0, chunks).parallel().forEach(c -> parts[c] = expand(graph, distances,
+                        current, (int) ((long) current.length * c / chunks),
+                        (int) ((long) current.length * (c + 1) / chunks), depth));
+                int total = 0;
+                for (int[] part : parts) {
+                    total += part.length;
+                }
+                frontier = new int[total];
+                int offset = 0;
+                for (int[] part : parts) {
+                    System.arraycopy(part, 0, frontier, offset, part.length);
+                    offset += part.length;
+                }
+            }
+        }
+        int[] result = new int[graph.size()];
+        for (int v = 0; v < result.length; v++) {
+            result[v] = distances.get(v);
+        }
+        return result;
+    }
+
+    /**
+     * Claim the unvisited targets of frontier[from .. to) at the given level.
+     *
+     * @return the newly claimed vertices
+     */
+    private static <L> int[] expand(IndexedGraph<L> graph, AtomicIntegerArray distances,
+            int[] frontier, int from, int to, int level) {
+        int[] next = new int[16];
+        int size = 0;
+        for (int f = from; f < to; f++) {
+            int v = frontier[f];
+            for (int i = graph.outOffsets[v]; i < graph.outOffsets[v + 1]; i++) {
+                int u = graph.outTargets[i];
+                if (distances.get(u) == UNREACHABLE && distances.compareAndSet(u, UNREACHABLE, level)) {
+                    if (size == next.length) {
+                        next = Arrays.copyOf(next, size * 2);
+                    }
+                    next[size++] = u;
+                }
+            }
+        }
+        return Arrays.copyOf(next, size);
+    }
+
+    /**
+     * Find a path of least total edge weight.
+     *
+     * @param <L> type of vertex labels
+     * @param graph a graph
+     * @param source label of the first vertex
+     * @param target label of the last vertex
+     * @return a path from source to target minimizing the sum of its edge
+     *         weights, with that sum as its weight; or null if target cannot
+     *         be reached from source
+     */
+    public static <L> Path<L> shortestPath(Graph<L> graph, L source, L target) {
+        return shortestPath(new IndexedGraph<>(graph), source, target);
+    }
+
+    /**
+     * Find a path of least total edge weight using Dijkstra's algorithm.
+     *
+     * @param <L> type of vertex labels
+     * @param graph a graph snapshot
+     * @param source label of the first vertex
+     * @param target label of the last vertex
+     * @return a path from source to target minimizing the sum of its edge
+     *         weights, with that sum as its weight; or null if target cannot
+     *         be reached from source
+     */
+    public static <L> Path<L> shortestPath(IndexedGraph<L> graph, L source, L target) {
+        int s = graph.id(source);
+        int t = graph.id(target);
+        if (s < 0 || t < 0) {
+            return null;
+        }
+        int[] previous = new int[graph.size()];
+        boolean[] settled = new boolean[graph.size()];
+        Arrays.fill(previous, -1);
+        IntMinHeap heap = new IntMinHeap(graph.size());
+        heap.offer(s, 0);
+        while (!heap.isEmpty()) {
+            int v = heap.poll();
+            settled[v] = true;
+            long distance = heap.key(v);
+            if (v == t) {
+                return path(graph, previous, s, t, distance);
+            }
+            for (int i = graph.outOffsets[v]; i < graph.outOffsets[v + 1]; i++) {
+                int u = graph.outTargets[i];
+                if (!settled[u] && heap.offer(u, distance + graph.outWeights[i])) {
+                    previous[u] = v;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find a path whose lightest edge is as heavy as possible.
+     *
+     * @param <L> type of vertex labels
+     * @param graph a graph
+     * @param source label of the first vertex
+     * @param target label of the last vertex
+     * @return a path from source to target maximizing the minimum of its edge
+     *         weights, with that minimum as its weight (Long.MAX_VALUE for the
+     *         one-vertex path from a vertex to itself); or null if target
+     *         cannot be reached from source
+     */
+    public static <L> Path<L> widestPath(Graph<L> graph, L source, L target) {
+        return widestPath(new IndexedGraph<>(graph), source, target);
+    }
+
+    /**
+     * Find a path whose lightest edge is as heavy as possible, using a
+     * modified Dijkstra's algorithm.
+     *
+     * @param <L> type of vertex labels
+     * @param graph a graph snapshot
+     * @param source label of the first vertex
+     * @param target label of the last vertex
+     * @return a path from source to target maximizing the minimum of its edge
+     *         weights, with that minimum as its weight (Long.MAX_VALUE for the
+     *         one-vertex path from a vertex to itself); or null if target
+     *         cannot be reached from source
+     */
+    public static <L> Path<L> widestPath(IndexedGraph<L> graph, L source, L target) {
+        int s = graph.id(source);
+        int t = graph.id(target);
+        if (s < 0 || t < 0) {
+            return null;
+        }
+        int[] previous = new int[graph.size()];
+        boolean[] settled = new boolean[graph.size()];
+        Arrays.fill(previous, -1);
+        // the min-heap holds negated widths so the widest vertex comes first
+        IntMinHeap heap = new IntMinHeap(graph.size());
+        heap.offer(s, -Long.MAX_VALUE);
+        while (!heap.isEmpty()) {
+            int v = heap.poll();
+            settled[v] = true;
+            long width = -heap.key(v);
+            if (v == t) {
+                return path(graph, previous, s, t, width);
+            }
+            for (int i = graph.outOffsets[v]; i < graph.outOffsets[v + 1]; i++) {
+                int u = graph.outTargets[i];
+                if (!settled[u] && heap.offer(u, -Math.min(width, graph.outWeights[i]))) {
+                    previous[u] = v;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static <L> Path<L> path(IndexedGraph<L> graph, int[] previous, int s, int t, long weight) {
+        List<L> vertices = new ArrayList<>();
+        for (int v = t; v != s; v = previous[v]) {
+            vertices.add(graph.label(v));
+        }
+        vertices.add(graph.label(s));
+        Collections.reverse(vertices);
+        return new Path<>(vertices, weight);
+    }
+}
@@ -0,0 +1,162 @@
+package graph.algorithms;
+
+import graph.Graph;
+import java.util.*;
+
+/**
+ * An immutable snapshot of a Graph with vertices numbered 0 .. size()-1 and
+ * edges stored in primitive compressed-sparse-row arrays.
+ *
+ * <p>Building a snapshot calls {@link Graph#vertices()} once and
+ * {@link Graph#targets(Object)} once per vertex; after that, algorithms run
+ * over int arrays without touching the original graph or boxing.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class IndexedGraph<L> {
+
+    private final List<L> labels;
+    private final Map<L, Integer> ids;
+    final int[] outOffsets;
+    final int[] outTargets;
+    final int[] outWeights;
+    final int[] inOffsets;
+    final int[] inSources;
+    final int[] inWeights;
+
+    // Abstraction function:
+    //   Represents the directed weighted graph with vertices labels.get(0 .. n-1)
+    //   and, for each v, an edge from v to outTargets[i] with weight
+    //   outWeights[i] for each i in [outOffsets[v], outOffsets[v+1]);
+    //   inOffsets/inSources/inWeights list the same edges grouped by target
+
+    // Representation invariant:
+    //   - ids.get(labels.get(v)) == v for every v, and ids has no other keys
+    //   - outOffsets and inOffsets have length n+1, start at 0, are
+    //     nondecreasing and end at the number of edges
+    //   - every stored vertex id is in [0, n) and every weight is positive
+    //   - the in arrays hold exactly the reverse of the out arrays
+
+    // Safety from rep exposure:
+    //   - labels and ids are private, and labels is unmodifiable
+    //   - the arrays are shared only with classes in this package, which
+    //     never modify them
+
+    /**
+     * Take a snapshot of a graph.
+     *
+     * @param graph the graph to copy; it is not modified
+     */
+    public IndexedGraph(Graph<L> graph) {
+        List<L> vertices = new ArrayList<>(graph.vertices());
+        labels = Collections.unmodifiableList(vertices);
+        ids = new HashMap<>();
+        for (int v = 0; v < vertices.size(); v++) {
+            ids.put(vertices.get(v), v);
+        }
+        int n = vertices.size();
+
+        List<Map<L, Integer>> targets = new ArrayList<>(n);
+        outOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            Map<L, Integer> edges = graph.targets(vertices.get(v));
+            targets.add(edges);
+            outOffsets[v + 1] = outOffsets[v] + edges.size();
+        }
+        int m = outOffsets[n];
+        outTargets = new int[m];
+        outWeights = new int[m];
+        int[] inDegree = new int[n];
+        for (int v = 0; v < n; v++) {
+            int i = outOffsets[v];
+            for (Map.Entry<L, Integer> edge : targets.get(v).entrySet()) {
+                int u = ids.get(edge.getKey());
+                outTargets[i] = u;
+                outWeights[i++] = edge.getValue();
+                inDegree[u]++;
+            }
+            targets.set(v, null);
+        }
+
+        inOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            inOffsets[u + 1] = inOffsets[u] + inDegree[u];
+        }
+        inSources = new int[m];
+        inWeights = new int[m];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                int slot = next[outTargets[i]]++;
+                inSources[slot] = v;
+                inWeights[slot] = outWeights[i];
+            }
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert labels.size() == ids.size();
+        assert outOffsets.length == labels.size() + 1;
+        assert inOffsets.length == labels.size() + 1;
+        assert outOffsets[labels.size()] == outTargets.length;
+        assert inOffsets[labels.size()] == inSources.length;
+        assert outTargets.length == inSources.length;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int size() {
+        return labels.size();
+    }
+
+    /**
+     * @return number of edges
+     */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Get the id of a vertex.
+     *
+     * @param label a label
+     * @return the id of the vertex with that label, or -1 if there is none
+     */
+    public int id(L label) {
+        Integer id = ids.get(label);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Get the label of a vertex.
+     *
+     * @param id a vertex id in [0, size())
+     * @return the label of that vertex
+     */
+    public L label(int id) {
+        return labels.get(id);
+    }
+
+    /**
+     * @param id a vertex id in [0, size())
+     * @return number of edges from that vertex
+     */
+    public int outDegree(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+
+    /**
+     * @param id a vertex id in [0, size())
+     * @return number of edges to that vertex
+     */
+    public int inDegree(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IndexedGraph with %d vertices and %d edges", size(), edgeCount());
+    }
+}
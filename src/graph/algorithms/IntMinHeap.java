@@ -0,0 +1,135 @@
+package graph.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of vertex ids in [0, capacity) keyed by long priorities,
+ * supporting decrease-key, stored entirely in primitive arrays.
+ */
+class IntMinHeap {
+
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    // Abstraction function:
+    //   Represents the set of ids heap[0 .. size), where id v has priority keys[v]
+
+    // Representation invariant:
+    //   - 0 <= size <= heap.length
+    //   - positions[heap[i]] == i for 0 <= i < size, and positions[v] == -1
+    //     for every id v not in the heap
+    //   - keys[heap[(i-1)/2]] <= keys[heap[i]] for 0 < i < size
+
+    // Safety from rep exposure:
+    //   - all fields are private and arrays are never returned
+
+    /**
+     * Make an empty heap.
+     *
+     * @param capacity one more than the largest id that will be inserted
+     */
+    public IntMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, -1);
+        checkRep();
+    }
+
+    // checked only on construction, since a full check costs O(size) per
+    // operation
+    private void checkRep() {
+        assert size >= 0 && size <= heap.length;
+        for (int i = 1; i < size; i++) {
+            assert keys[heap[(i - 1) / 2]] <= keys[heap[i]];
+        }
+    }
+
+    /**
+     * @return true if the heap has no ids
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Insert an id, or lower the priority of an id already in the heap.
+     *
+     * @param id an id in [0, capacity)
+     * @param key new priority
+     * @return true if the heap was modified; false if id was already in the
+     *         heap with a priority no greater than key
+     */
+    public boolean offer(int id, long key) {
+        int i = positions[id];
+        if (i < 0) {
+            i = size++;
+        } else if (keys[id] <= key) {
+            return false;
+        }
+        keys[id] = key;
+        // sift up
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (keys[p] <= key) {
+                break;
+            }
+            heap[i] = p;
+            positions[p] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        positions[id] = i;
+        return true;
+    }
+
+    /**
+     * Remove the id with the smallest priority.
+     *
+     * @return the removed id; requires the heap to be nonempty
+     */
+    public int poll() {
+        int top = heap[0];
+        positions[top] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            long key = keys[last];
+            int i = 0;
+            // sift down
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[heap[child]] >= key) {
+                    break;
+                }
+                heap[i] = heap[child];
+                positions[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = last;
+            positions[last] = i;
+        }
+        return top;
+    }
+
+    /**
+     * @param id an id that has been offered
+     * @return the last priority given to id
+     */
+    public long key(int id) {
+        return keys[id];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IntMinHeap with %d of %d ids", size, heap.length);
+    }
+}
@@ -0,0 +1,224 @@
+package graph.algorithms;
+
+import graph.Graph;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Iterative weighted PageRank over a frozen graph snapshot.
+ *
+ * <p>Each vertex passes its score to its targets in proportion to edge
+ * weight; vertices with no edges spread their score evenly. Every iteration
+ * is a pull-based sweep, where each vertex sums over its incoming edges, so
+ * vertex ranges can be computed independently on a fork-join pool without
+ * synchronization. Iteration stops when the L1 change in scores falls below
+ * the tolerance or after the iteration limit.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class PageRank<L> {
+
+    /** Default probability of following an edge rather than jumping. */
+    public static final double DEFAULT_DAMPING = 0.85;
+    /** Default L1 change in scores below which ranking has converged. */
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    /** Default maximum number of sweeps. */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    // vertex ranges smaller than this are swept by a single task
+    private static final int SWEEP_GRAIN = 2048;
+
+    private final IndexedGraph<L> graph;
+    private final double damping;
+    private final double tolerance;
+    private final int maxIterations;
+    private final ForkJoinPool pool;
+    private final double[] inFactors;
+    private final int[] dangling;
+
+    // Abstraction function:
+    //   Represents a ranking computation over graph, where the edge stored at
+    //   in-edge slot i passes fraction inFactors[i] of its source's score,
+    //   and dangling lists the vertices with no outgoing edges
+
+    // Representation invariant:
+    //   - 0 <= damping <= 1, tolerance >= 0, maxIterations >= 1
+    //   - inFactors.length == graph.edgeCount(), with every factor in (0, 1]
+    //   - dangling holds exactly the ids with graph.outDegree(v) == 0
+
+    // Safety from rep exposure:
+    //   - all fields are private and final
+    //   - arrays are never returned; graph is immutable
+
+    /**
+     * Make a ranking engine with default parameters on the common pool.
+     *
+     * @param graph the graph to rank; a snapshot is taken, so later changes
+     *              to graph are not seen
+     */
+    public PageRank(Graph<L> graph) {
+        this(new IndexedGraph<>(graph), DEFAULT_DAMPING, DEFAULT_TOLERANCE,
+                DEFAULT_MAX_ITERATIONS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Make a ranking engine.
+     *
+     * @param graph snapshot of the graph to rank
+     * @param damping probability in [0, 1] of following an edge
+     * @param tolerance nonnegative L1 change at which to stop
+     * @param maxIterations positive maximum number of sweeps
+     * @param pool pool that runs the sweeps
+     */
+    public PageRank(IndexedGraph<L> graph, double damping, double tolerance,
+            int maxIterations, ForkJoinPool pool) {
+        if (damping < 0 || damping > 1) {
+            throw new IllegalArgumentException("Damping must be between 0 and 1");
+        }
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must be non-negative");
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Maximum iterations must be positive");
+        }
+        this.graph = graph;
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.pool = pool;
+
+        int n = graph.size();
+        long[] outWeight = new long[n];
+        for (int v = 0; v < n; v++) {
+            for (int i = graph.outOffsets[v]; i < graph.outOffsets[v + 1]; i++) {
+                outWeight[v] += graph.outWeights[i];
+            }
+        }
+        inFactors = new double[graph.edgeCount()];
+        for (int i = 0; i < inFactors.length; i++) {
+            inFactors[i] = (double) graph.inWeights[i] / outWeight[graph.inSources[i]];
+        }
+        int count = 0;
+        int[] sinks = new int[n];
+        for (int v = 0; v < n; v++) {
+            if (outWeight[v] == 0) {
+                sinks[count++] = v;
+            }
+        }
+        dangling = Arrays.copyOf(sinks, count);
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert damping >= 0 && damping <= 1;
+        assert tolerance >= 0;
+        assert maxIterations >= 1;
+        assert inFactors.length == graph.edgeCount();
+    }
+
+    /**
+     * Rank every vertex starting from a uniform distribution.
+     *
+     * @return scores summing to 1 (or an empty ranking for an empty graph)
+     */
+    public Ranking<L> rank() {
+        double[] scores = new double[graph.size()];
+        Arrays.fill(scores, 1.0 / Math.max(1, graph.size()));
+        return iterate(scores);
+    }
+
+    /**
+     * Rank every vertex starting from an earlier result, typically computed
+     * before the graph was updated. Vertices that were not ranked before
+     * start at the uniform score, and the starting scores are normalized.
+     *
+     * @param previous an earlier ranking, possibly of a different snapshot
+     * @return scores summing to 1 (or an empty ranking for an empty graph)
+     */
+    public Ranking<L> rank(Ranking<L> previous) {
+        int n = graph.size();
+        double[] scores = new double[n];
+        double total = 0;
+        for (int v = 0; v < n; v++) {
+            double score = previous.score(graph.label(v));
+            scores[v] = score > 0 ? score : 1.0 / n;
+            total += scores[v];
+        }
+        for (int v = 0; v < n; v++) {
+            scores[v] /= total;
+        }
+        return iterate(scores);
+    }
+
+    private Ranking<L> iterate(double[] scores) {
+        int n = graph.size();
+        if (n == 0) {
+            return new Ranking<>(graph, scores, 0, true);
+        }
+        double[] next = new double[n];
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            double danglingScore = 0;
+            for (int v : dangling) {
+                danglingScore += scores[v];
+            }
+            double base = (1 - damping) / n + damping * danglingScore / n;
+            double change = pool.invoke(new Sweep(scores, next, base, 0, n));
+            double[] swap = scores;
+            scores = next;
+            next = swap;
+            if (change < tolerance) {
+                return new Ranking<>(graph, scores, iteration, true);
+            }
+        }
+        return new Ranking<>(graph, scores, maxIterations, false);
+    }
+
+    /**
+     * Computes the next scores of a range of vertices, returning their L1
+     * change.
+     */
+    private final class Sweep extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] scores;
+        private final double[] next;
+        private final double base;
+        private final int from;
+        private final int to;
+
+        Sweep(double[] scores, double[] next, double base, int from, int to) {
+            this.scores = scores;
+            this.next = next;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > SWEEP_GRAIN) {
+                int middle = (from + to) >>> 1;
+                Sweep left = new Sweep(scores, next, base, from, middle);
+                left.fork();
+                double right = new Sweep(scores, next, base, middle, to).compute();
+                return left.join() + right;
+            }
+            double change = 0;
+            for (int v = from; v < to; v++) {
+                double sum = 0;
+                for (int i = graph.inOffsets[v]; i < graph.inOffsets[v + 1]; i++) {
+                    sum += scores[graph.inSources[i]] * inFactors[i];
+                }
+                next[v] = base + damping * sum;
+                change += Math.abs(next[v] - scores[v]);
+            }
+            return change;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageRank over %s (damping %.2f)", graph, damping);
+    }
+}
@@ -0,0 +1,80 @@
+package graph.algorithms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable directed path through a graph, with a score.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class Path<L> {
+
+    private final List<L> vertices;
+    private final long weight;
+
+    // Abstraction function:
+    //   Represents the walk vertices.get(0) -> vertices.get(1) -> ... with
+    //   score weight, whose meaning depends on the algorithm that found it
+
+    // Representation invariant:
+    //   - vertices is not null, not empty, and contains no null
+
+    // Safety from rep exposure:
+    //   - all fields are private and final
+    //   - vertices is an unmodifiable copy
+
+    /**
+     * Make a path.
+     *
+     * @param vertices labels along the path, at least one
+     * @param weight score of the path
+     */
+    public Path(List<L> vertices, long weight) {
+        if (vertices.isEmpty()) {
+            throw new IllegalArgumentException("Path must have at least one vertex");
+        }
+        this.vertices = Collections.unmodifiableList(new ArrayList<>(vertices));
+        this.weight = weight;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert vertices != null && !vertices.isEmpty();
+        for (L vertex : vertices) {
+            assert vertex != null;
+        }
+    }
+
+    /**
+     * @return labels along the path, from first to last
+     */
+    public List<L> getVertices() {
+        return vertices;
+    }
+
+    /**
+     * @return score of the path
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof Path)) return false;
+        Path<?> other = (Path<?>) that;
+        return weight == other.weight && vertices.equals(other.vertices);
+    }
+
+    @Override
+    public int hashCode() {
+        return vertices.hashCode() * 31 + Long.hashCode(weight);
+    }
+
+    @Override
+    public String toString() {
+        return vertices + " (" + weight + ")";
+    }
+}
@@ -0,0 +1,191 @@
+package graph.algorithms;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Weighted random walks over a graph snapshot, where each step follows an
+ * edge with probability proportional to its weight.
+ *
+ * <p>Each vertex gets an alias table (Vose's method) the first time a walk
+ * leaves it, after which choosing the next vertex takes constant time
+ * regardless of degree. Tables are stored in two arrays parallel to the
+ * snapshot's edge arrays. Walks are reproducible: the same seed always
+ * gives the same walk, and many walks can be generated in parallel.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class RandomWalks<L> {
+
+    private final IndexedGraph<L> graph;
+    private final double[] probabilities;
+    private final int[] aliases;
+    private final AtomicIntegerArray built;
+
+    // Abstraction function:
+    //   Represents the weighted random walks of graph. For each vertex v with
+    //   built.get(v) == 1, the alias table of v is probabilities and aliases
+    //   over the edge slots [graph.outOffsets[v], graph.outOffsets[v+1]):
+    //   slot k keeps its own edge with probability probabilities[k] and
+    //   otherwise takes edge slot aliases[k]
+
+    // Representation invariant:
+    //   - probabilities.length == aliases.length == graph.edgeCount()
+    //   - built.length() == graph.size()
+    //   - for a built vertex v, every alias is a slot of v and every
+    //     probability is in [0, 1]
+
+    // Safety from rep exposure:
+    //   - all fields are private and final, arrays are never returned
+    //   - graph is immutable
+    //   - a table is published by the volatile write to built after it is
+    //     complete; two threads may build the same table, but write
+    //     identical values
+
+    /**
+     * Prepare to walk a graph snapshot.
+     *
+     * @param graph the snapshot to walk
+     */
+    public RandomWalks(IndexedGraph<L> graph) {
+        this.graph = graph;
+        this.probabilities = new double[graph.edgeCount()];
+        this.aliases = new int[graph.edgeCount()];
+        this.built = new AtomicIntegerArray(graph.size());
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert probabilities.length == graph.edgeCount();
+        assert aliases.length == graph.edgeCount();
+        assert built.length() == graph.size();
+    }
+
+    /**
+     * Build the alias table of every vertex now rather than on first use.
+     */
+    public void buildAll() {
+        IntStream.range(0, graph.size()).parallel().forEach(this::table);
+    }
+
+    private void table(int v) {
+        if (built.get(v) == 1) {
+            return;
+        }
+        int from = graph.outOffsets[v];
+        int degree = graph.outOffsets[v + 1] - from;
+        long total = 0;
+        for (int i = 0; i < degree; i++) {
+            total += graph.outWeights[from + i];
+        }
+        // scaled[i] = weight * degree / total, split into small and large
+        double[] scaled = new double[degree];
+        int[] small = new int[degree];
+        int[] large = new int[degree];
+        int smalls = 0;
+        int larges = 0;
+        for (int i = 0; i < degree; i++) {
+            scaled[i] = (double) graph.outWeights[from + i] * degree / total;
+            if (scaled[i] < 1) {
+                small[smalls++] = i;
+            } else {
+                large[larges++] = i;
+            }
+        }
+        while (smalls > 0 && larges > 0) {
+            int s = small[--smalls];
+            int l = large[--larges];
+            probabilities[from + s] = scaled[s];
+            aliases[from + s] = from + l;
+            scaled[l] = scaled[l] + scaled[s] - 1;
+            if (scaled[l] < 1) {
+                small[smalls++] = l;
+            } else {
+                large[larges++] = l;
+            }
+        }
+        // leftovers are 1 up to rounding error
+        while (larges > 0) {
+            int l = large[--larges];
+            probabilities[from + l] = 1;
+            aliases[from + l] = from + l;
+        }
+        while (smalls > 0) {
+            int s = small[--smalls];
+            probabilities[from + s] = 1;
+            aliases[from + s] = from + s;
+        }
+        built.set(v, 1);
+    }
+
+    /**
+     * Choose the next vertex of a walk.
+     *
+     * @param v current vertex id, with at least one outgoing edge
+     * @param random source of randomness
+     * @return id of the chosen target
+     */
+    private int step(int v, SplittableRandom random) {
+        table(v);
+        int from = graph.outOffsets[v];
+        int degree = graph.outOffsets[v + 1] - from;
+        double u = random.nextDouble() * degree;
+        int slot = from + Math.min((int) u, degree - 1);
+        if (u - (slot - from) >= probabilities[slot]) {
+            slot = aliases[slot];
+        }
+        return graph.outTargets[slot];
+    }
+
+    /**
+     * Walk from a vertex.
+     *
+     * @param start label of the first vertex
+     * @param steps maximum number of edges to follow
+     * @param seed seed that determines the walk
+     * @return the labels visited, starting with start and stopping early at a
+     *         vertex with no outgoing edges; empty if start is not in the graph
+     */
+    public List<L> walk(L start, int steps, long seed) {
+        List<L> result = new ArrayList<>();
+        int v = graph.id(start);
+        if (v < 0) {
+            return result;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        result.add(start);
+        for (int i = 0; i < steps && graph.outDegree(v) > 0; i++) {
+            v = step(v, random);
+            result.add(graph.label(v));
+        }
+        return result;
+    }
+
+    /**
+     * Walk many times from a vertex, in parallel on the common fork-join pool.
+     *
+     * @param start label of the first vertex
+     * @param steps maximum number of edges to follow in each walk
+     * @param count number of walks
+     * @param seed seed that determines all the walks
+     * @return count walks as by {@link #walk(Object, int, long)}; walk i is
+     *         the same however many threads run
+     */
+    public List<List<L>> walks(L start, int steps, int count, long seed) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] walkSeeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            walkSeeds[i] = seeds.nextLong();
+        }
+        return IntStream.range(0, count).parallel()
+                .mapToObj(i -> walk(start, steps, walkSeeds[i]))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RandomWalks over %s", graph);
+    }
+}
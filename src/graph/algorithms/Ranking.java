@@ -0,0 +1,101 @@
+package graph.algorithms;
+
+import java.util.*;
+
+/**
+ * Immutable result of ranking the vertices of a graph snapshot.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class Ranking<L> {
+
+    private final IndexedGraph<L> graph;
+    private final double[] scores;
+    private final int iterations;
+    private final boolean converged;
+
+    // Abstraction function:
+    //   Represents the assignment of score scores[v] to graph.label(v) for
+    //   each vertex id v, reached after the given number of iterations,
+    //   which either met the convergence tolerance or ran out
+
+    // Representation invariant:
+    //   - scores.length == graph.size()
+    //   - every score is nonnegative
+    //   - iterations >= 0
+
+    // Safety from rep exposure:
+    //   - all fields are private and final
+    //   - scores is never modified after construction and never returned
+    //   - graph is immutable
+
+    Ranking(IndexedGraph<L> graph, double[] scores, int iterations, boolean converged) {
+        this.graph = graph;
+        this.scores = scores;
+        this.iterations = iterations;
+        this.converged = converged;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert scores.length == graph.size();
+        assert iterations >= 0;
+    }
+
+    /**
+     * Get the score of a vertex.
+     *
+     * @param label a label
+     * @return the score of that vertex, or zero if it was not ranked
+     */
+    public double score(L label) {
+        int id = graph.id(label);
+        return id >= 0 ? scores[id] : 0;
+    }
+
+    /**
+     * Get the highest-ranked vertices.
+     *
+     * @param k maximum number of labels to return
+     * @return up to k labels in decreasing order of score
+     */
+    public List<L> top(int k) {
+        Integer[] order = new Integer[scores.length];
+        for (int v = 0; v < order.length; v++) {
+            order[v] = v;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        List<L> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(k, order.length); i++) {
+            result.add(graph.label(order[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of vertices ranked
+     */
+    public int size() {
+        return scores.length;
+    }
+
+    /**
+     * @return the number of sweeps performed
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return true if the scores met the convergence tolerance
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Ranking of %d vertices after %d iterations%s",
+                scores.length, iterations, converged ? "" : " (not converged)");
+    }
+}
@@ -0,0 +1,374 @@
+package poet;
+
+import graph.Graph;
+import graph.HashGraph;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * A bigram graph over a continuous text stream that forgets old text.
+ *
+ * <p>In window modes, bigrams are counted into a ring of buckets, each
+ * covering one epoch of tokens or of clock time. When an epoch ends, the
+ * oldest bucket's counts are subtracted from the graph, so the graph holds
+ * the bigrams of the last {@code buckets} epochs. In decay mode, an edge's
+ * weight is its weight when last counted, multiplied by a factor for each
+ * epoch since then and rounded down. Decay is applied lazily, when an edge
+ * is read or counted again, so an epoch ending only touches the edges whose
+ * weight reaches zero then. Either way, edges whose weight reaches zero are
+ * removed, and words left with no edges are removed, so memory stays
+ * bounded for an endless stream.
+ *
+ * <p>Words are cleaned and lower-cased the same way as corpus words, and
+ * the last word of one feed is joined to the first word of the next.
+ * Not safe for use by multiple threads.
+ */
+public class BigramWindow {
+
+    private final HashGraph graph = new HashGraph();
+    private final Graph<String> view;
+    private final Map<String, Integer> degrees = new HashMap<>();
+    private final List<Map<String, Map<String, Integer>>> buckets;
+    private final Map<String, Map<String, Stamp>> stamps = new HashMap<>();
+    private final TreeMap<Long, List<Stamp>> expiries = new TreeMap<>();
+    private final long epochLength;
+    private final LongSupplier clock;
+    private final double decay;
+    private long tokens = 0;
+    private long epoch = 0;
+    private String previousWord = null;
+
+    // Abstraction function:
+    //   Represents the recent bigrams of a text stream, with graph as their
+    //   weighted graph. In window modes buckets.get(e % buckets.size())
+    //   holds the bigram counts of epoch e, for the last buckets.size()
+    //   epochs, and view is graph. In decay mode (buckets == null) graph
+    //   holds each edge's count as of stamps.get(s).get(t).epoch, and view
+    //   is graph with every weight w decayed to floor(w * decay^k) after k
+    //   more epochs. An epoch is epochLength tokens if clock is null,
+    //   otherwise epochLength clock units. previousWord is the last word fed.
+
+    // Representation invariant:
+    //   - epochLength >= 1
+    //   - exactly one of buckets and decay describes the mode: buckets is
+    //     null iff 0 < decay < 1
+    //   - in window modes, the weight of every edge equals the sum of its
+    //     counts over all buckets
+    //   - in decay mode, stamps has an entry for exactly the edges of graph,
+    //     each stamp's expires is the first epoch at which its edge's decayed
+    //     weight is zero, is after the current epoch, and is a key of
+    //     expiries whose list holds the stamp; in window modes stamps and
+    //     expiries are empty
+    //   - degrees maps each vertex of graph to its positive number of
+    //     incident edge endpoints, and graph has no vertex without edges
+
+    // Safety from rep exposure:
+    //   - all fields are private
+    //   - view is only shared with GraphPoet in this package, which only
+    //     reads it; in decay mode its mutators throw
+
+    private BigramWindow(int bucketCount, long epochLength, LongSupplier clock, double decay) {
+        if (epochLength < 1) {
+            throw new IllegalArgumentException("Epoch length must be positive");
+        }
+        this.epochLength = epochLength;
+        this.clock = clock;
+        this.decay = decay;
+        if (bucketCount > 0) {
+            buckets = new ArrayList<>();
+            for (int i = 0; i < bucketCount; i++) {
+                buckets.add(new HashMap<>());
+            }
+            view = graph;
+        } else {
+            buckets = null;
+            view = new DecayedGraph();
+        }
+        this.epoch = currentEpoch();
+        checkRep();
+    }
+
+    /**
+     * Make a window over roughly the last given number of tokens.
+     *
+     * @param tokens positive window length in tokens
+     * @param bucketCount positive number of buckets; the window holds between
+     *                    tokens - tokens / bucketCount and tokens tokens
+     * @return a new, empty window
+     */
+    public static BigramWindow lastTokens(int tokens, int bucketCount) {
+        if (tokens < 1 || bucketCount < 1) {
+            throw new IllegalArgumentException("Tokens and buckets must be positive");
+        }
+        return new BigramWindow(bucketCount, (tokens + bucketCount - 1) / bucketCount, null, 0);
+    }
+
+    /**
+     * Make a window over roughly the last given stretch of clock time.
+     *
+     * @param duration positive window length in clock units
+     * @param bucketCount positive number of buckets, each covering
+     *                    duration / bucketCount clock units
+     * @param clock source of the current time, for example
+     *              {@code System::currentTimeMillis}
+     * @return a new, empty window
+     */
+    public static BigramWindow lastDuration(long duration, int bucketCount, LongSupplier clock) {
+        if (duration < bucketCount || bucketCount < 1) {
+            throw new IllegalArgumentException("Duration must be at least the number of buckets");
+        }
+        return new BigramWindow(bucketCount, duration / bucketCount, clock, 0);
+    }
+
+    /**
+     * Make a graph whose weights decay exponentially with the stream.
+     *
+     * @param factor multiplier applied to every weight each step, in (0, 1)
+     * @param tokensPerStep positive number of tokens between decay steps
+     * @return a new, empty graph
+     */
+    public static BigramWindow decaying(double factor, int tokensPerStep) {
+        if (!(factor > 0 && factor < 1)) {
+            throw new IllegalArgumentException("Decay factor must be between 0 and 1");
+        }
+        return new BigramWindow(0, tokensPerStep, null, factor);
+    }
+
+    private void checkRep() {
+        assert epochLength >= 1;
+        assert (buckets == null) == (decay > 0 && decay < 1);
+        // a view of the graph's keys, so checking its size is constant time
+        assert degrees.size() == graph.vertices().size();
+        assert expiries.isEmpty() || expiries.firstKey() > epoch;
+    }
+
+    private long currentEpoch() {
+        return (clock == null ? tokens : clock.getAsLong()) / epochLength;
+    }
+
+    /**
+     * Add the words of some text to the end of the stream.
+     *
+     * @param text text to add; words are separated by whitespace
+     */
+    public void feed(String text) {
+        WordScanner words = new WordScanner(text);
+        while (words.next()) {
+            String word = words.key();
+            if (word.isEmpty()) {
+                continue;
+            }
+            advance();
+            if (previousWord != null) {
+                if (buckets != null) {
+                    buckets.get((int) (epoch % buckets.size()))
+                            .computeIfAbsent(previousWord, w -> new HashMap<>())
+                            .merge(word, 1, Integer::sum);
+                    adjust(previousWord, word, 1);
+                } else {
+                    countDecaying(previousWord, word);
+                }
+            }
+            previousWord = word;
+            tokens++;
+        }
+        advance();
+        checkRep();
+    }
+
+    /**
+     * Expire the epochs that have ended.
+     */
+    private void advance() {
+        long now = currentEpoch();
+        if (buckets == null) {
+            epoch = now;
+            while (!expiries.isEmpty() && expiries.firstKey() <= now) {
+                Map.Entry<Long, List<Stamp>> expired = expiries.pollFirstEntry();
+                for (Stamp stamp : expired.getValue()) {
+                    // skip stamps rescheduled or already expired
+                    if (stamp.expires == expired.getKey()
+                            && stamps.get(stamp.source).get(stamp.target) == stamp) {
+                        forget(stamp);
+                        adjust(stamp.source, stamp.target, -graph.weight(stamp.source, stamp.target));
+                    }
+                }
+            }
+            return;
+        }
+        if (now - epoch >= buckets.size()) {
+            // idle for a whole window: everything expires
+            epoch = now - buckets.size();
+        }
+        while (epoch < now) {
+            epoch++;
+            Map<String, Map<String, Integer>> expired = buckets.get((int) (epoch % buckets.size()));
+            for (Map.Entry<String, Map<String, Integer>> source : expired.entrySet()) {
+                for (Map.Entry<String, Integer> target : source.getValue().entrySet()) {
+                    adjust(source.getKey(), target.getKey(), -target.getValue());
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    /**
+     * Count one more occurrence of a bigram in decay mode, first decaying
+     * its weight to the current epoch.
+     */
+    private void countDecaying(String source, String target) {
+        Map<String, Stamp> targets = stamps.computeIfAbsent(source, s -> new HashMap<>());
+        Stamp stamp = targets.get(target);
+        int stored = graph.weight(source, target);
+        int weight = (stamp == null ? 0 : decayed(stored, epoch - stamp.epoch)) + 1;
+        adjust(source, target, weight - stored);
+        if (stamp == null) {
+            stamp = new Stamp(source, target);
+            targets.put(target, stamp);
+        }
+        stamp.epoch = epoch;
+        long expires = epoch + epochsToZero(weight);
+        if (expires != stamp.expires) {
+            stamp.expires = expires;
+            expiries.computeIfAbsent(expires, e -> new ArrayList<>()).add(stamp);
+        }
+    }
+
+    private void forget(Stamp stamp) {
+        Map<String, Stamp> targets = stamps.get(stamp.source);
+        targets.remove(stamp.target);
+        if (targets.isEmpty()) {
+            stamps.remove(stamp.source);
+        }
+    }
+
+    /**
+     * @return weight decayed over the given number of epochs
+     */
+    private int decayed(int weight, long epochs) {
+        return (int) (weight * Math.pow(decay, epochs));
+    }
+
+    /**
+     * @return the fewest epochs, at least one, over which a positive weight
+     *         decays to zero
+     */
+    private long epochsToZero(int weight) {
+        long epochs = Math.max(1, (long) (Math.log(weight) / -Math.log(decay)) + 1);
+        // correct for rounding in the logarithms
+        while (epochs > 1 && decayed(weight, epochs - 1) == 0) {
+            epochs--;
+        }
+        while (decayed(weight, epochs) > 0) {
+            epochs++;
+        }
+        return epochs;
+    }
+
+    /**
+     * Change the weight of an edge, removing it at zero and removing words
+     * left with no edges.
+     */
+    private void adjust(String source, String target, int delta) {
+        int old = graph.weight(source, target);
+        int weight = old + delta;
+        assert weight >= 0;
+        if (weight == old) {
+            return;
+        }
+        graph.set(source, target, weight);
+        if (old == 0) {
+            degrees.merge(source, 1, Integer::sum);
+            degrees.merge(target, 1, Integer::sum);
+        } else if (weight == 0) {
+            release(source);
+            release(target);
+        }
+    }
+
+    private void release(String vertex) {
+        if (degrees.merge(vertex, -1, Integer::sum) == 0) {
+            degrees.remove(vertex);
+            graph.remove(vertex);
+        }
+    }
+
+    /**
+     * Get the live graph of recent bigrams; it changes as text is fed.
+     * Callers must not modify it.
+     */
+    Graph<String> graph() {
+        return view;
+    }
+
+    /**
+     * @return the number of tokens fed so far
+     */
+    public long tokens() {
+        return tokens;
+    }
+
+    /**
+     * When a decaying edge was last counted, and when its weight decays to
+     * zero.
+     */
+    private static final class Stamp {
+        private final String source;
+        private final String target;
+        private long epoch;
+        private long expires = -1;
+
+        private Stamp(String source, String target) {
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    /**
+     * The graph in decay mode: graph with every weight decayed from the
+     * epoch it was last counted to the current epoch. Read-only.
+     */
+    private final class DecayedGraph implements Graph<String> {
+
+        @Override
+        public boolean add(String vertex) {
+            throw new UnsupportedOperationException("BigramWindow graph is read-only");
+        }
+
+        @Override
+        public int set(String source, String target, int weight) {
+            throw new UnsupportedOperationException("BigramWindow graph is read-only");
+        }
+
+        @Override
+        public boolean remove(String vertex) {
+            throw new UnsupportedOperationException("BigramWindow graph is read-only");
+        }
+
+        @Override
+        public Set<String> vertices() {
+            return graph.vertices();
+        }
+
+        @Override
+        public Map<String, Integer> sources(String target) {
+            Map<String, Integer> sources = graph.sources(target);
+            sources.replaceAll((source, weight) ->
+                    decayed(weight, epoch - stamps.get(source).get(target).epoch));
+            return sources;
+        }
+
+        @Override
+        public Map<String, Integer> targets(String source) {
+            Map<String, Integer> targets = graph.targets(source);
+            Map<String, Stamp> own = stamps.get(source);
+            targets.replaceAll((target, weight) -> decayed(weight, epoch - own.get(target).epoch));
+            return targets;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BigramWindow after %d tokens with %d words", tokens, degrees.size());
+    }
+}
@@ -0,0 +1,348 @@
+package poet;
+
+import graph.Graph;
+import graph.HeapFootprint;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A read-only bigram graph of a corpus that builds adjacency on demand.
+ *
+ * <p>Loading scans the corpus once into an inverted index: the word id of
+ * every token, and for every word the positions of its tokens, both kept in
+ * a temporary file rather than on the heap. The file is mapped in
+ * fixed-size windows, like MappedCorpusReader maps a corpus, so the index
+ * is not limited by the 2 GB size of one mapping. The targets of a
+ * word are then counted from the tokens after its positions, and its
+ * sources from the tokens before them, the first time they are asked for.
+ * The most recently used adjacencies are cached, up to a fixed number of
+ * words per direction; older ones are evicted and rebuilt if needed again.
+ *
+ * <p>Mutators throw UnsupportedOperationException. Safe for use by multiple
+ * threads.
+ */
+class CorpusIndexGraph implements Graph<String>, HeapFootprint.Measured {
+
+    /** Default log2 of the number of bytes mapped per window. */
+    static final int DEFAULT_WINDOW_BITS = 28;
+
+    // most positions of one word sorted at a time when counting neighbors
+    private static final int CHUNK = 1 << 20;
+
+    private final Map<String, Integer> ids;
+    private final String[] words;
+    private final long[] offsets;
+    private final long length;
+    private final MappedArray tokens;
+    private final MappedArray positions;
+    private final Map<String, Map<String, Integer>> targetCache;
+    private final Map<String, Map<String, Integer>> sourceCache;
+
+    // Abstraction function:
+    //   Represents the bigram graph of a corpus of length words, whose token
+    //   at position p is words[tokens.getInt(p)]; the positions of word id w
+    //   are positions.getLong(offsets[w] .. offsets[w+1]), in increasing
+    //   order. The edge from s to t has the number of positions p where s is
+    //   at p and t at p + 1 as its weight. targetCache and sourceCache map
+    //   some words to their targets and sources.
+
+    // Representation invariant:
+    //   - ids maps exactly the words to their indexes
+    //   - offsets has length words.length + 1, starts at 0, is
+    //     nondecreasing and ends at length
+    //   - tokens and positions each hold length elements
+    //   - every cached map equals the adjacency computed from the index
+
+    // Safety from rep exposure:
+    //   - all fields are private and final, arrays and buffers are never
+    //     returned, and the mapped file is not reachable from outside
+    //   - vertices() returns an unmodifiable view of immutable keys
+    //   - sources() and targets() return new maps
+    //   - the caches are only used while holding their own locks
+
+    /**
+     * An array of ints or longs in a file region, mapped in windows of a
+     * fixed power-of-two size so that no element straddles two windows.
+     */
+    private static final class MappedArray {
+        private final MappedByteBuffer[] windows;
+        private final int elementShift;
+        private final int windowBits;
+        private final long windowMask;
+        private final long length;
+
+        /**
+         * @param channel file to map, extended if the region lies beyond it
+         * @param offset byte offset of the region
+         * @param length number of elements
+         * @param elementShift log2 of the bytes per element, 2 or 3
+         * @param windowBits log2 of the bytes per window, at least elementShift
+         */
+        private MappedArray(FileChannel channel, long offset, long length, int elementShift,
+                int windowBits) throws IOException {
+            long bytes = length << elementShift;
+            long windowBytes = 1L << windowBits;
+            this.windows = new MappedByteBuffer[(int) ((bytes + windowBytes - 1) >>> windowBits)];
+            for (int w = 0; w < windows.length; w++) {
+                long start = (long) w << windowBits;
+                windows[w] = channel.map(FileChannel.MapMode.READ_WRITE, offset + start,
+                        Math.min(windowBytes, bytes - start));
+            }
+            this.elementShift = elementShift;
+            this.windowBits = windowBits;
+            this.windowMask = windowBytes - 1;
+            this.length = length;
+        }
+
+        private int getInt(long index) {
+            long at = index << elementShift;
+            return windows[(int) (at >>> windowBits)].getInt((int) (at & windowMask));
+        }
+
+        private long getLong(long index) {
+            long at = index << elementShift;
+            return windows[(int) (at >>> windowBits)].getLong((int) (at & windowMask));
+        }
+
+        private void putLong(long index, long value) {
+            long at = index << elementShift;
+            windows[(int) (at >>> windowBits)].putLong((int) (at & windowMask), value);
+        }
+    }
+
+    /**
+     * Index a corpus.
+     *
+     * @param corpus text file, words read as by GraphPoet
+     * @param cachedWords positive number of words whose targets, and
+     *                    separately sources, are kept in memory
+     * @throws IOException if the corpus cannot be read or the index file
+     *                     cannot be written
+     */
+    CorpusIndexGraph(File corpus, int cachedWords) throws IOException {
+        this(corpus, cachedWords, DEFAULT_WINDOW_BITS);
+    }
+
+    /**
+     * Index a corpus, mapping the index in windows of a given size.
+     *
+     * @param corpus text file, words read as by GraphPoet
+     * @param cachedWords positive number of words whose targets, and
+     *                    separately sources, are kept in memory
+     * @param windowBits log2 of the bytes mapped per window, from 3 to 30
+     * @throws IOException if the corpus cannot be read or the index file
+     *                     cannot be written
+     */
+    CorpusIndexGraph(File corpus, int cachedWords, int windowBits) throws IOException {
+        if (cachedWords < 1) {
+            throw new IllegalArgumentException("Must cache at least one word");
+        }
+        if (windowBits < 3 || windowBits > 30) {
+            throw new IllegalArgumentException("Window must be 2^3 to 2^30 bytes");
+        }
+        File index = File.createTempFile("corpus-index", ".bin");
+        try {
+            // pass 1: number the words and write the id of every token
+            Map<String, Integer> numbering = new HashMap<>();
+            List<String> vocabulary = new ArrayList<>();
+            long[] counts = new long[64];
+            long tokenCount = 0;
+            try (MappedCorpusReader reader = new MappedCorpusReader(corpus);
+                    OutputStream file = Files.newOutputStream(index.toPath());
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                String word;
+                while ((word = reader.nextWord()) != null) {
+                    Integer id = numbering.get(word);
+                    if (id == null) {
+                        id = vocabulary.size();
+                        numbering.put(word, id);
+                        vocabulary.add(word);
+                        if (id == counts.length) {
+                            counts = Arrays.copyOf(counts, counts.length * 2);
+                        }
+                    }
+                    counts[id]++;
+                    out.writeInt(id);
+                    tokenCount++;
+                }
+            }
+            this.ids = numbering;
+            this.words = vocabulary.toArray(new String[0]);
+            this.length = tokenCount;
+            this.offsets = new long[words.length + 1];
+            for (int w = 0; w < words.length; w++) {
+                offsets[w + 1] = offsets[w] + counts[w];
+            }
+
+            // pass 2: lay out the positions of each word after the tokens
+            try (FileChannel channel = FileChannel.open(index.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.tokens = new MappedArray(channel, 0, length, 2, windowBits);
+                this.positions = new MappedArray(channel, 4 * length, length, 3, windowBits);
+            }
+            long[] next = Arrays.copyOf(offsets, words.length);
+            for (long p = 0; p < length; p++) {
+                positions.putLong(next[tokens.getInt(p)]++, p);
+            }
+        } finally {
+            // the mappings stay valid; only on systems that refuse to delete
+            // a mapped file is it left for deleteOnExit, whose entries last
+            // until the JVM exits
+            if (!index.delete()) {
+                index.deleteOnExit();
+            }
+        }
+        this.targetCache = lru(cachedWords);
+        this.sourceCache = lru(cachedWords);
+        checkRep();
+    }
+
+    private static Map<String, Map<String, Integer>> lru(int capacity) {
+        return new LinkedHashMap<String, Map<String, Integer>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Integer>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private void checkRep() {
+        assert ids.size() == words.length;
+        assert offsets.length == words.length + 1 && offsets[0] == 0;
+        assert offsets[words.length] == length;
+        assert tokens.length == length && positions.length == length;
+    }
+
+    /**
+     * Count the words at a fixed distance from every token of a word.
+     *
+     * @param vertex a word
+     * @param step +1 for the following words, -1 for the preceding ones
+     * @return map from each neighbor to its number of occurrences
+     */
+    private Map<String, Integer> neighbors(String vertex, int step) {
+        Integer id = ids.get(vertex);
+        if (id == null) {
+            return Collections.emptyMap();
+        }
+        long from = offsets[id];
+        long to = offsets[id + 1];
+        // sort the neighbor ids of a bounded chunk of positions at a time, so
+        // a very frequent word does not need an array of all its positions
+        int[] found = new int[(int) Math.min(CHUNK, to - from)];
+        Map<String, Integer> result = new HashMap<>();
+        for (long start = from; start < to; start += found.length) {
+            int n = 0;
+            for (long i = start; i < Math.min(to, start + found.length); i++) {
+                long p = positions.getLong(i) + step;
+                if (p >= 0 && p < length) {
+                    found[n++] = tokens.getInt(p);
+                }
+            }
+            Arrays.sort(found, 0, n);
+            for (int i = 0; i < n; ) {
+                int j = i;
+                while (j < n && found[j] == found[i]) {
+                    j++;
+                }
+                result.merge(words[found[i]], j - i, Integer::sum);
+                i = j;
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Map<String, Integer> cached(Map<String, Map<String, Integer>> cache, String vertex, int step) {
+        Map<String, Integer> adjacency;
+        synchronized (cache) {
+            adjacency = cache.get(vertex);
+        }
+        if (adjacency == null) {
+            // built outside the lock; two threads may build the same map
+            adjacency = neighbors(vertex, step);
+            if (ids.containsKey(vertex)) {
+                synchronized (cache) {
+                    cache.put(vertex, adjacency);
+                }
+            }
+        }
+        return adjacency;
+    }
+
+    /**
+     * @return the number of words whose targets are cached
+     */
+    int cachedTargets() {
+        synchronized (targetCache) {
+            return targetCache.size();
+        }
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("CorpusIndexGraph is read-only");
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("CorpusIndexGraph is read-only");
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("CorpusIndexGraph is read-only");
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        return new HashMap<>(cached(sourceCache, target, -1));
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        return new HashMap<>(cached(targetCache, source, +1));
+    }
+
+    /**
+     * Estimate the heap retained by the vocabulary and the cached
+     * adjacencies; the mapped index is outside the heap and not counted.
+     */
+    @Override
+    public long estimatedHeapBytes() {
+        long total = HeapFootprint.hashMap(words.length) + HeapFootprint.strings(Arrays.asList(words))
+                + HeapFootprint.array(words.length, 4) + HeapFootprint.array(offsets.length, 8);
+        for (Map<String, Map<String, Integer>> cache : Arrays.asList(targetCache, sourceCache)) {
+            synchronized (cache) {
+                total += HeapFootprint.hashMap(cache.size());
+                for (Map<String, Integer> adjacency : cache.values()) {
+                    total += HeapFootprint.hashMap(adjacency.size());
+                    for (int weight : adjacency.values()) {
+                        total += HeapFootprint.integer(weight);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CorpusIndexGraph of %d tokens and %d words, %d cached",
+                length, words.length, cachedTargets());
+    }
+}
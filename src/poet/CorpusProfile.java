@@ -0,0 +1,237 @@
+package poet;
+
+import graph.HeapFootprint;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Statistics of a corpus that determine how much heap a poet built from it
+ * needs, gathered in one pass without building a graph.
+ *
+ * <p>The scan keeps each distinct word once and each distinct bigram once,
+ * as a pair of word ids with a count in an open-addressing table of about
+ * 24 bytes per bigram, so it needs far less memory than the graph it
+ * predicts, and no memory per token.
+ */
+class CorpusProfile {
+
+    // most distinct bigrams the table can hold
+    private static final int MAX_TABLE = 1 << 30;
+
+    private final long tokens;
+    private final long tokenStringBytes;
+    private final long labelBytes;
+    private final int vertices;
+    private final int edges;
+    private final int[] outDegrees;
+    private final int boxedWeights;
+    private final long compressedOutBytes;
+    private final long compressedInBytes;
+
+    // Abstraction function:
+    //   Represents a corpus of tokens words, whose strings total
+    //   tokenStringBytes, with vertices distinct words totalling labelBytes,
+    //   and edges distinct bigrams, where the word with first occurrence i
+    //   is followed by outDegrees[i] distinct words, boxedWeights bigrams
+    //   occur more than 127 times, and a CompressedGraph of the bigrams
+    //   encodes compressedOutBytes and compressedInBytes of adjacency
+
+    // Representation invariant:
+    //   - outDegrees.length == vertices, and the out-degrees add up to edges
+    //   - vertices <= tokens, edges < tokens unless tokens == 0
+
+    // Safety from rep exposure:
+    //   - all fields are private and final, and outDegrees is never returned
+
+    /**
+     * Scan a corpus.
+     *
+     * @param corpus text file as read by GraphPoet
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public CorpusProfile(File corpus) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        // distinct bigrams as (first id << 32 | second id) + 1, 0 if empty
+        long[] keys = new long[1024];
+        int[] weights = new int[keys.length];
+        int distinct = 0;
+        long tokenCount = 0;
+        long tokenBytes = 0;
+        try (MappedCorpusReader reader = new MappedCorpusReader(corpus)) {
+            String word;
+            int previous = -1;
+            while ((word = reader.nextWord()) != null) {
+                tokenCount++;
+                tokenBytes += HeapFootprint.string(word);
+                Integer id = ids.get(word);
+                if (id == null) {
+                    id = words.size();
+                    ids.put(word, id);
+                    words.add(word);
+                }
+                if (previous >= 0) {
+                    long key = (((long) previous << 32) | id) + 1;
+                    int slot = find(keys, key);
+                    if (keys[slot] == 0) {
+                        keys[slot] = key;
+                        distinct++;
+                        if (distinct > keys.length / 2) {
+                            if (keys.length == MAX_TABLE) {
+                                throw new IllegalArgumentException("Corpus has too many distinct bigrams to profile");
+                            }
+                            long[] oldKeys = keys;
+                            int[] oldWeights = weights;
+                            keys = new long[keys.length * 2];
+                            weights = new int[keys.length];
+                            for (int i = 0; i < oldKeys.length; i++) {
+                                if (oldKeys[i] != 0) {
+                                    int to = find(keys, oldKeys[i]);
+                                    keys[to] = oldKeys[i];
+                                    weights[to] = oldWeights[i];
+                                }
+                            }
+                            slot = find(keys, key);
+                        }
+                    }
+                    // a weight past Integer.MAX_VALUE saturates, as it could
+                    // not be stored in a graph either
+                    if (weights[slot] < Integer.MAX_VALUE) {
+                        weights[slot]++;
+                    }
+                }
+                previous = id;
+            }
+        }
+
+        // ranks of the ids in sorted label order
+        int[] rank = new int[words.size()];
+        Integer[] byLabel = new Integer[words.size()];
+        for (int i = 0; i < byLabel.length; i++) {
+            byLabel[i] = i;
+        }
+        Arrays.sort(byLabel, (a, b) -> words.get(a).compareTo(words.get(b)));
+        for (int r = 0; r < byLabel.length; r++) {
+            rank[byLabel[r]] = r;
+        }
+
+        // compact the table in place into (source rank, target rank) pairs,
+        // counting degrees and weights on the way
+        int[] degrees = new int[words.size()];
+        int boxed = 0;
+        long weightBytes = 0;
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                long key = keys[i] - 1;
+                int source = (int) (key >>> 32);
+                int target = (int) key;
+                degrees[source]++;
+                boxed += HeapFootprint.integer(weights[i]) > 0 ? 1 : 0;
+                weightBytes += varintLength(weights[i]);
+                keys[n++] = ((long) rank[source] << 32) | rank[target];
+            }
+        }
+        weights = null;
+        long outBytes = weightBytes + gapBytes(keys, n);
+        for (int i = 0; i < n; i++) {
+            keys[i] = (keys[i] << 32) | (keys[i] >>> 32);
+        }
+        long inBytes = weightBytes + gapBytes(keys, n);
+
+        long labels = 0;
+        for (String word : words) {
+            labels += HeapFootprint.string(word);
+        }
+        this.tokens = tokenCount;
+        this.tokenStringBytes = tokenBytes;
+        this.labelBytes = labels;
+        this.vertices = words.size();
+        this.edges = n;
+        this.outDegrees = degrees;
+        this.boxedWeights = boxed;
+        this.compressedOutBytes = outBytes;
+        this.compressedInBytes = inBytes;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert outDegrees.length == vertices;
+        assert vertices <= tokens;
+        assert tokens == 0 || edges < tokens;
+    }
+
+    // SplitMix64 finalizer spreads consecutive ids over the table
+    private static int find(long[] keys, long key) {
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        int mask = keys.length - 1;
+        int slot = (int) h & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Sum the varint lengths of the gaps in sorted (list, neighbor) pairs,
+     * where each list's first gap is from zero.
+     */
+    private static long gapBytes(long[] pairs, int length) {
+        Arrays.sort(pairs, 0, length);
+        long bytes = 0;
+        for (int i = 0; i < length; i++) {
+            boolean sameList = i > 0 && (pairs[i] >>> 32) == (pairs[i - 1] >>> 32);
+            int previous = sameList ? (int) pairs[i - 1] : 0;
+            bytes += varintLength((int) pairs[i] - previous);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return estimated bytes of a ConcreteEdgesGraph of the corpus bigrams
+     */
+    public long concreteEdgesGraph() {
+        return HeapFootprint.concreteEdgesGraph(labelBytes, vertices, edges);
+    }
+
+    /**
+     * @return estimated bytes of a ConcreteVerticesGraph of the corpus bigrams
+     */
+    public long concreteVerticesGraph() {
+        return HeapFootprint.concreteVerticesGraph(labelBytes, outDegrees, boxedWeights);
+    }
+
+    /**
+     * @return estimated bytes of a CompressedGraph of the corpus bigrams
+     */
+    public long compressedGraph() {
+        return HeapFootprint.compressedGraph(labelBytes, vertices, compressedOutBytes, compressedInBytes);
+    }
+
+    /**
+     * @return estimated bytes of the corpus word list that a poet keeps, not
+     *         counting the first occurrence of each word, which the graph
+     *         holds as a label
+     */
+    public long corpusWords() {
+        return HeapFootprint.arrayList(tokens) + tokenStringBytes - labelBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CorpusProfile of %d tokens, %d words, %d bigrams", tokens, vertices, edges);
+    }
+}
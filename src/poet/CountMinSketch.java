@@ -0,0 +1,133 @@
+package poet;
+
+/**
+ * Fixed-size approximate counter of word bigrams.
+ *
+ * <p>With width ceil(e / epsilon) and depth ceil(ln(1 / delta)), every
+ * estimate is at least the true count, and with probability at least
+ * 1 - delta it exceeds the true count by at most epsilon times the total of
+ * all counts added. Memory depends only on epsilon and delta, not on the
+ * number of distinct bigrams. Increments use conservative update, which
+ * keeps the same guarantee with smaller overestimates.
+ */
+class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+    private long total;
+
+    // Abstraction function:
+    //   Represents a multiset of bigrams of total size total, summarized so
+    //   that the count of bigram b is estimated by the minimum over rows r of
+    //   counters[r * width + index(b, r)]
+
+    // Representation invariant:
+    //   - width >= 1, depth >= 1, counters.length == width * depth
+    //   - every counter is nonnegative and at most total
+
+    // Safety from rep exposure:
+    //   - all fields are private and counters is never returned
+
+    /**
+     * Make an empty sketch.
+     *
+     * @param epsilon relative error bound, in (0, 1)
+     * @param delta probability of exceeding the error bound, in (0, 1)
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("Epsilon and delta must be between 0 and 1");
+        }
+        long w = (long) Math.ceil(Math.E / epsilon);
+        int d = Math.max(1, (int) Math.ceil(Math.log(1 / delta)));
+        // a tiny epsilon saturates w, so compare before multiplying
+        if (w > (Integer.MAX_VALUE - 8) / d) {
+            throw new IllegalArgumentException("Epsilon and delta need too many counters");
+        }
+        this.width = (int) w;
+        this.depth = d;
+        this.counters = new int[width * depth];
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert width >= 1 && depth >= 1;
+        assert counters.length == width * depth;
+        assert total >= 0;
+    }
+
+    // 64-bit finalizer from SplitMix64
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static long hash(String first, String second) {
+        return mix(first.hashCode() * 0x9E3779B97F4A7C15L + second.hashCode());
+    }
+
+    // rows use double hashing: index_r = h1 + r * h2 (mod width)
+    private int index(long h, int row) {
+        long h1 = h;
+        long h2 = mix(h) | 1;
+        return row * width + (int) Long.remainderUnsigned(h1 + row * h2, width);
+    }
+
+    /**
+     * Count one occurrence of a bigram.
+     *
+     * @param first first word
+     * @param second second word
+     * @return the new estimated count of the bigram
+     */
+    public int add(String first, String second) {
+        long h = hash(first, second);
+        int estimate = Integer.MAX_VALUE;
+        for (int r = 0; r < depth; r++) {
+            estimate = Math.min(estimate, counters[index(h, r)]);
+        }
+        if (estimate == Integer.MAX_VALUE) {
+            return estimate;
+        }
+        estimate++;
+        for (int r = 0; r < depth; r++) {
+            int i = index(h, r);
+            if (counters[i] < estimate) {
+                counters[i] = estimate;
+            }
+        }
+        total++;
+        return estimate;
+    }
+
+    /**
+     * Estimate the count of a bigram.
+     *
+     * @param first first word
+     * @param second second word
+     * @return an upper bound on the number of times the bigram was added,
+     *         usually within epsilon times total() of the true count
+     */
+    public int estimate(String first, String second) {
+        long h = hash(first, second);
+        int estimate = Integer.MAX_VALUE;
+        for (int r = 0; r < depth; r++) {
+            estimate = Math.min(estimate, counters[index(h, r)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return the number of bigrams added
+     */
+    public long total() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CountMinSketch %d x %d with %d bigrams", depth, width, total);
+    }
+}
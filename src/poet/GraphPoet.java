@@ -1,45 +1,214 @@
 package poet;
 
+import graph.CompressedGraph;
 import graph.Graph;
-import java.io.BufferedReader;
+import graph.HeapFootprint;
+import graph.OverlayGraph;
+import graph.algorithms.BridgeSearch;
+import graph.algorithms.IndexedGraph;
+import graph.algorithms.RandomWalks;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
-public class GraphPoet {
+public class GraphPoet implements HeapFootprint.Measured {
     private final Graph<String> graph;
     private final List<String> corpusWords;
+    private IndexedGraph<String> indexed;
+    private RandomWalks<String> walks;
+    private final BridgeSearch<String> bridgeSearch;
+    private CompressedGraph overlayBase;
     
     public GraphPoet(File corpus) throws IOException {
         graph = Graph.empty();
         corpusWords = new ArrayList<>();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(corpus))) {
-            String line;
+        bridgeSearch = new BridgeSearch<>(graph);
+        addCorpus(graph, corpus, corpusWords, (previousWord, cleanWord) -> {
+            int currentWeight = graph.set(previousWord, cleanWord, 0);
+            graph.set(previousWord, cleanWord, currentWeight + 1);
+        });
+        checkRep();
+    }
+    
+    private GraphPoet(Graph<String> graph, List<String> corpusWords) {
+        this.graph = graph;
+        this.corpusWords = corpusWords;
+        this.bridgeSearch = new BridgeSearch<>(graph);
+        checkRep();
+    }
+    
+    /**
+     * Add the words of a corpus to a graph, and pass each bigram to count.
+     */
+    private static void addCorpus(Graph<String> graph, File corpus, List<String> corpusWords,
+            BiConsumer<String, String> count) throws IOException {
+        try (MappedCorpusReader reader = new MappedCorpusReader(corpus)) {
+            String cleanWord;
             String previousWord = null;
             
-            while ((line = reader.readLine()) != null) {
-                String[] words = line.trim().split("\\s+");
-                for (String word : words) {
-                    if (!word.isEmpty()) {
-                        // Remove punctuation for graph storage
-                        String cleanWord = stripPunctuation(word).toLowerCase();
-                        if (!cleanWord.isEmpty()) {
-                            corpusWords.add(cleanWord);
-                            graph.add(cleanWord);
-                            
-                            if (previousWord != null) {
-                                int currentWeight = graph.set(previousWord, cleanWord, 0);
-                                graph.set(previousWord, cleanWord, currentWeight + 1);
-                            }
-                            previousWord = cleanWord;
-                        }
+            while ((cleanWord = reader.nextWord()) != null) {
+                corpusWords.add(cleanWord);
+                graph.add(cleanWord);
+                
+                if (previousWord != null) {
+                    count.accept(previousWord, cleanWord);
+                }
+                previousWord = cleanWord;
+            }
+        }
+    }
+    
+    /**
+     * Build a poet for one tenant from a shared poet and a private corpus.
+     * The shared poet's graph is layered under the private bigram counts
+     * without being copied or modified, so edge weights are the sum of the
+     * shared and private counts. getCorpusWords() holds only the private
+     * corpus words.
+     * 
+     * <p>The first overlay of a shared poet compresses its graph once, and
+     * every later overlay of it reads that compressed copy in place.
+     * 
+     * @param shared poet built from the shared base corpus; its graph must
+     *               not change once it has overlays
+     * @param corpus private text file of this tenant
+     * @return a new poet
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public static GraphPoet overlay(GraphPoet shared, File corpus) throws IOException {
+        OverlayGraph graph = new OverlayGraph(shared.overlayBase());
+        List<String> corpusWords = new ArrayList<>();
+        // keep only this corpus's counts in the private delta
+        addCorpus(graph, corpus, corpusWords,
+                (previousWord, cleanWord) -> graph.increment(previousWord, cleanWord, 1));
+        return new GraphPoet(graph, corpusWords);
+    }
+    
+    /**
+     * Build a poet that only keeps bigrams whose count, estimated with a
+     * Count-Min sketch, reaches a threshold. The corpus is read twice: once
+     * to count, once to add the frequent bigrams to the graph with their
+     * estimated counts as weights. Estimates never undercount, and with
+     * probability 1 - delta overcount by at most epsilon times the number of
+     * bigrams in the corpus. Corpus words are not retained, so
+     * getCorpusWords() is empty.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param epsilon relative error bound of the sketch, in (0, 1)
+     * @param delta probability of exceeding the error bound, in (0, 1)
+     * @param threshold minimum estimated count of a bigram kept in the graph
+     * @return a new poet
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public static GraphPoet approximate(File corpus, double epsilon, double delta,
+            int threshold) throws IOException {
+        CountMinSketch sketch = new CountMinSketch(epsilon, delta);
+        try (MappedCorpusReader reader = new MappedCorpusReader(corpus)) {
+            String word;
+            String previousWord = null;
+            while ((word = reader.nextWord()) != null) {
+                if (previousWord != null) {
+                    sketch.add(previousWord, word);
+                }
+                previousWord = word;
+            }
+        }
+        
+        Graph<String> graph = Graph.empty();
+        try (MappedCorpusReader reader = new MappedCorpusReader(corpus)) {
+            String word;
+            String previousWord = null;
+            while ((word = reader.nextWord()) != null) {
+                if (previousWord != null) {
+                    int estimate = sketch.estimate(previousWord, word);
+                    if (estimate >= threshold) {
+                        graph.set(previousWord, word, estimate);
                     }
                 }
+                previousWord = word;
             }
         }
-        checkRep();
+        return new GraphPoet(graph, new ArrayList<>());
+    }
+    
+    /**
+     * Build a poet that keeps, for each word, only the k words that most
+     * often follow it, counted in one pass with a Space-Saving summary per
+     * word. Every follower more frequent than 1/k of its word's bigrams is
+     * kept, and kept weights overcount by at most that word's bigram count
+     * divided by k. Corpus words are not retained, so getCorpusWords() is
+     * empty.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param k positive number of followers tracked per word
+     * @param threshold minimum estimated count of a bigram kept in the graph
+     * @return a new poet
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public static GraphPoet topK(File corpus, int k, int threshold) throws IOException {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        Map<String, SpaceSaving> followers = new HashMap<>();
+        try (MappedCorpusReader reader = new MappedCorpusReader(corpus)) {
+            String word;
+            String previousWord = null;
+            while ((word = reader.nextWord()) != null) {
+                if (previousWord != null) {
+                    SpaceSaving summary = followers.get(previousWord);
+                    if (summary == null) {
+                        summary = new SpaceSaving(k);
+                        followers.put(previousWord, summary);
+                    }
+                    summary.offer(word);
+                }
+                previousWord = word;
+            }
+        }
+        
+        Graph<String> graph = Graph.empty();
+        for (Map.Entry<String, SpaceSaving> entry : followers.entrySet()) {
+            for (Map.Entry<String, Integer> edge : entry.getValue().top(threshold).entrySet()) {
+                graph.set(entry.getKey(), edge.getKey(), edge.getValue());
+            }
+        }
+        return new GraphPoet(graph, new ArrayList<>());
+    }
+    
+    /**
+     * Build a poet that indexes a corpus instead of building its graph, so
+     * loading is one fast scan however large the corpus. The index of each
+     * word's positions is kept in a temporary file, 12 bytes per token,
+     * mapped into memory in windows so its size is bounded by disk space
+     * rather than by the 2 GB limit of one mapping, and a
+     * word's neighbors are counted from it the first time a poem needs them;
+     * the neighbors of the most recently used words are cached. Poems are
+     * the same as from new GraphPoet(corpus). getCorpusWords() is empty, and
+     * generate() counts the neighbors of every word on its first call.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param cachedWords positive number of words whose neighbors are kept in
+     *                    memory, in each direction
+     * @return a new poet
+     * @throws IOException if the corpus file cannot be found or read, or the
+     *                     index cannot be written
+     */
+    public static GraphPoet lazy(File corpus, int cachedWords) throws IOException {
+        return new GraphPoet(new CorpusIndexGraph(corpus, cachedWords), new ArrayList<>());
+    }
+    
+    /**
+     * Build a poet whose affinity graph is the live graph of a stream
+     * window, so its bridges always reflect the text most recently fed to
+     * the window. getCorpusWords() is empty.
+     * 
+     * @param window stream of text from which to derive the affinity graph
+     * @return a new poet
+     */
+    public static GraphPoet streaming(BigramWindow window) {
+        return new GraphPoet(window.graph(), new ArrayList<>());
     }
     
     private void checkRep() {
@@ -55,41 +224,197 @@ public class GraphPoet {
         return Collections.unmodifiableList(corpusWords);
     }
     
+    /**
+     * Estimate the heap retained by this poet's graph and corpus words. Each
+     * corpus word is counted as its own string, except that the first
+     * occurrence of each word is assumed to be the graph's label. Random
+     * walk tables built by generate() are not counted.
+     * 
+     * @return estimated bytes
+     */
+    @Override
+    public long estimatedHeapBytes() {
+        long words = HeapFootprint.arrayList(corpusWords.size()) + HeapFootprint.strings(corpusWords)
+                - HeapFootprint.strings(new HashSet<>(corpusWords));
+        return HeapFootprint.of(graph) + words;
+    }
+    
+    /**
+     * Predict, without building a graph, the heap that new GraphPoet(corpus)
+     * would retain with each graph implementation, as estimatedHeapBytes()
+     * would report it. The corpus is scanned once, keeping each distinct
+     * word and each distinct bigram once.
+     * 
+     * @param corpus text file from which a poet would be built
+     * @return map from the simple class names ConcreteEdgesGraph,
+     *         ConcreteVerticesGraph and CompressedGraph to estimated bytes of
+     *         a poet using that graph implementation
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public static Map<String, Long> predictHeapBytes(File corpus) throws IOException {
+        CorpusProfile profile = new CorpusProfile(corpus);
+        long words = profile.corpusWords();
+        Map<String, Long> predictions = new LinkedHashMap<>();
+        predictions.put("ConcreteEdgesGraph", profile.concreteEdgesGraph() + words);
+        predictions.put("ConcreteVerticesGraph", profile.concreteVerticesGraph() + words);
+        predictions.put("CompressedGraph", profile.compressedGraph() + words);
+        return predictions;
+    }
+    
     public String poem(String input) {
-        if (input.trim().isEmpty()) {
+        return poem(input, null);
+    }
+    
+    /**
+     * Generate a poem, remembering bridges so that poems generated together
+     * look up each pair of adjacent words only once.
+     * 
+     * @param input as for poem(input)
+     * @param bridges memo from source + "\0" + target to the bridge word, or
+     *                to "" if there is none; updated with new lookups. If
+     *                null, nothing is remembered
+     * @return as for poem(input)
+     */
+    String poem(String input, Map<String, String> bridges) {
+        if (bridges == null) {
+            return writePoem(input, this::findBridge);
+        }
+        return writePoem(input, (source, target) -> {
+            String bridge = bridges.computeIfAbsent(source + "\0" + target, pair -> {
+                String found = findBridge(source, target);
+                return found != null ? found : "";
+            });
+            return bridge.isEmpty() ? null : bridge;
+        });
+    }
+    
+    /**
+     * Generate a poem with a given way of bridging adjacent words.
+     * 
+     * @param input as for poem(input)
+     * @param bridges maps the keys of two adjacent words to the text to
+     *                insert between them, or to null if there is none
+     * @return as for poem(input)
+     */
+    private static String writePoem(String input, BiFunction<String, String, String> bridges) {
+        WordScanner words = new WordScanner(input);
+        if (!words.next()) {
             return input;
         }
         
-        String[] words = input.trim().split("\\s+");
-        StringBuilder poem = new StringBuilder();
-        
-        for (int i = 0; i < words.length; i++) {
-            // Add space before word if not first word
-            if (i > 0) {
-                poem.append(" ");
-            }
-            
-            String currentWord = words[i];
-            String punctuation = extractPunctuation(currentWord);
-            String cleanWord = stripPunctuation(currentWord);
-            
+        StringBuilder poem = new StringBuilder(input.length() * 2);
+        while (true) {
             // Add the current word with its original case
-            poem.append(cleanWord).append(punctuation);
+            words.appendWord(poem);
+            String source = words.key();
             
-            // If there's a next word, try to add a bridge
-            if (i < words.length - 1) {
-                String nextWord = stripPunctuation(words[i + 1]);
-                String bridge = findBridge(cleanWord.toLowerCase(), nextWord.toLowerCase());
-                
-                if (bridge != null) {
-                    poem.append(" ").append(bridge);
-                }
+            if (!words.next()) {
+                break;
             }
+            
+            // There's a next word, try to add a bridge
+            String bridge = bridges.apply(source, words.key());
+            if (bridge != null) {
+                poem.append(" ").append(bridge);
+            }
+            poem.append(" ");
         }
         
         return poem.toString();
     }
     
+    /**
+     * Generate a poem with bridges of up to maxBridgeWords words. Pairs of
+     * adjacent words that have a single-word bridge get the same bridge as
+     * from poem(input). For the other pairs, a path through the affinity
+     * graph with the fewest intermediate words is searched for, breaking
+     * ties by the greatest total weight, and its intermediate words are
+     * inserted. The search reads the graph as it is now, only as far as it
+     * explores within the budget, so it sees the latest bigrams of a
+     * streaming or overlay poet and does not load all of a lazy one.
+     * 
+     * @param input as for poem(input)
+     * @param maxBridgeWords positive maximum number of words inserted between
+     *                       two input words
+     * @param budget time allowed to search for each longer bridge; a pair
+     *               whose search runs out of time gets no bridge
+     * @param unit unit of budget
+     * @return the poem
+     */
+    public String poem(String input, int maxBridgeWords, long budget, TimeUnit unit) {
+        if (maxBridgeWords < 1) {
+            throw new IllegalArgumentException("Bridges must allow at least one word");
+        }
+        long budgetNanos = unit.toNanos(budget);
+        return writePoem(input, (source, target) -> {
+            String bridge = findBridge(source, target);
+            if (bridge != null || maxBridgeWords == 1) {
+                return bridge;
+            }
+            List<String> path = bridgeSearch.bridge(source, target, maxBridgeWords, budgetNanos);
+            return path.isEmpty() ? null : String.join(" ", path);
+        });
+    }
+    
+    /**
+     * Generate text by a weighted random walk over the affinity graph, where
+     * each next word is chosen with probability proportional to how often it
+     * follows the current word. The graph is frozen on the first call, so
+     * later changes to a streaming or overlay graph are not seen.
+     * 
+     * @param start first word; its letters and digits are used, in lower case
+     * @param words maximum number of words after start
+     * @param seed seed that determines the text
+     * @return the words of the walk separated by spaces, stopping early at a
+     *         word that is never followed; empty if start is not in the corpus
+     */
+    public String generate(String start, int words, long seed) {
+        return String.join(" ", walks().walk(key(start), words, seed));
+    }
+    
+    /**
+     * Generate many texts in parallel, as by generate(start, words, seed).
+     * 
+     * @param start first word of every text
+     * @param words maximum number of words after start in each text
+     * @param count number of texts
+     * @param seed seed that determines all the texts
+     * @return count texts; text i is the same however many threads run
+     */
+    public List<String> generate(String start, int words, int count, long seed) {
+        List<String> texts = new ArrayList<>();
+        for (List<String> walk : walks().walks(key(start), words, count, seed)) {
+            texts.add(String.join(" ", walk));
+        }
+        return texts;
+    }
+    
+    private synchronized CompressedGraph overlayBase() {
+        if (overlayBase == null) {
+            overlayBase = new CompressedGraph(graph);
+        }
+        return overlayBase;
+    }
+    
+    private synchronized IndexedGraph<String> indexed() {
+        if (indexed == null) {
+            indexed = new IndexedGraph<>(graph);
+        }
+        return indexed;
+    }
+    
+    private synchronized RandomWalks<String> walks() {
+        if (walks == null) {
+            walks = new RandomWalks<>(indexed());
+        }
+        return walks;
+    }
+    
+    private static String key(String word) {
+        WordScanner scanner = new WordScanner(word);
+        return scanner.next() ? scanner.key() : "";
+    }
+    
     private String findBridge(String source, String target) {
         Map<String, Integer> sourceTargets = graph.targets(source);
         Map<String, Integer> targetSources = graph.sources(target);
@@ -110,26 +435,6 @@ public class GraphPoet {
         return bestBridge;
     }
     
-    private String stripPunctuation(String word) {
-        StringBuilder cleaned = new StringBuilder();
-        for (char c : word.toCharArray()) {
-            if (Character.isLetterOrDigit(c)) {
-                cleaned.append(c);
-            }
-        }
-        return cleaned.toString();
-    }
-    
-    private String extractPunctuation(String word) {
-        StringBuilder punct = new StringBuilder();
-        for (char c : word.toCharArray()) {
-            if (!Character.isLetterOrDigit(c)) {
-                punct.append(c);
-            }
-        }
-        return punct.toString();
-    }
-    
     @Override
     public String toString() {
         return String.format("GraphPoet with %d words in corpus", corpusWords.size());
@@ -0,0 +1,139 @@
+package poet;
+
+/**
+ * Histogram of nonnegative long values, such as latencies in nanoseconds,
+ * with HDR-style log-linear buckets.
+ *
+ * <p>Values below 128 are counted exactly. Larger values fall in one of 64
+ * equal sub-buckets of their power-of-two range, so every reported value is
+ * within 1/64 (about 1.6%) of a recorded one. The whole long range takes a
+ * fixed 128 + 56 * 64 = 3,712 counters: the exact ones, then 64 for each
+ * power-of-two range from 2^7 up to 2^62. Recording is a few shifts and an
+ * increment.
+ * Not safe for use by multiple threads; record into one histogram per
+ * thread and merge them with add().
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = 2 * SUB_BUCKETS;
+
+    private final long[] counts = new long[index(Long.MAX_VALUE) + 1];
+    private long total;
+    private long sum;
+    private long max;
+
+    // Abstraction function:
+    //   Represents a multiset of total values, where counts[i] values lie
+    //   between lowest(i) and highest(i) inclusive, the values add up to sum
+    //   and the largest of them is max
+
+    // Representation invariant:
+    //   - total is the sum of counts, all counts are nonnegative
+    //   - max is zero if total is zero, otherwise in the highest nonempty
+    //     bucket
+
+    // Safety from rep exposure:
+    //   - all fields are private and counts is never returned
+
+    private static int index(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long highest(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long sub = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    private void checkRep() {
+        assert total >= 0 && max >= 0;
+        assert total > 0 || max == 0;
+    }
+
+    /**
+     * Count one value.
+     *
+     * @param value nonnegative value
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must be non-negative");
+        }
+        counts[index(value)]++;
+        total++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Count all the values of another histogram in this one.
+     *
+     * @param other histogram to add; not modified
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+        checkRep();
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long count() {
+        return total;
+    }
+
+    /**
+     * @return the largest value recorded, or 0 if none
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * @return the mean of the values recorded, or 0 if none
+     */
+    public double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * Get a percentile of the recorded values.
+     *
+     * @param percentile in [0, 100]
+     * @return the smallest bucket bound that at least percentile percent of
+     *         the values are at or below, capped at max(); 0 if no values
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length && total > 0; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highest(i), max);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram of %d values, p50 %d, max %d", total, percentile(50), max);
+    }
+}
@@ -0,0 +1,272 @@
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Command-line load driver that replays input lines against
+ * GraphPoet.poem() and reports throughput, tail latency, garbage
+ * collection and allocation as one line of JSON.
+ *
+ * <p>Usage: {@code java poet.LoadDriver corpus-file input-file [options]}
+ * <ul>
+ * <li>{@code --threads N} worker threads, default the number of processors
+ * <li>{@code --rate R} open-loop target in requests per second over all
+ *     threads; 0, the default, runs closed-loop as fast as possible
+ * <li>{@code --requests N} measured requests, default 100000
+ * <li>{@code --warmup N} unmeasured requests run first, default 10000
+ * </ul>
+ *
+ * <p>With a target rate, request i is scheduled at i / rate seconds after
+ * the start, and its latency is measured from that scheduled time rather
+ * than from when a thread got to it, so a stall is charged to every
+ * request it delays (no coordinated omission).
+ */
+public class LoadDriver {
+
+    private LoadDriver() {
+        throw new AssertionError("LoadDriver is not instantiable");
+    }
+
+    /**
+     * Immutable results of one run.
+     */
+    public static final class Result {
+        private final int threads;
+        private final double rate;
+        private final long requests;
+        private final long nanos;
+        private final LatencyHistogram latency;
+        private final long collections;
+        private final long collectionMillis;
+        private final long allocatedBytes;
+
+        // Abstraction function:
+        //   Represents a run of requests on threads at target rate (0 for
+        //   closed-loop) that took nanos, with latencies in nanoseconds,
+        //   collections garbage collections taking collectionMillis, and
+        //   allocatedBytes allocated by the workers (-1 if unknown)
+        // Representation invariant:
+        //   - latency.count() == requests, nanos > 0
+        // Safety from rep exposure:
+        //   - all fields are private and final; latency is never returned
+        //     or modified after construction
+
+        private Result(int threads, double rate, long requests, long nanos, LatencyHistogram latency,
+                long collections, long collectionMillis, long allocatedBytes) {
+            this.threads = threads;
+            this.rate = rate;
+            this.requests = requests;
+            this.nanos = Math.max(1, nanos);
+            this.latency = latency;
+            this.collections = collections;
+            this.collectionMillis = collectionMillis;
+            this.allocatedBytes = allocatedBytes;
+            assert latency.count() == requests;
+        }
+
+        /** @return number of measured requests */
+        public long getRequests() {
+            return requests;
+        }
+
+        /** @return measured requests per second */
+        public double getOpsPerSecond() {
+            return requests * 1e9 / nanos;
+        }
+
+        /**
+         * @param percentile in [0, 100]
+         * @return that percentile of request latency, in nanoseconds
+         */
+        public long getLatencyNanos(double percentile) {
+            return latency.percentile(percentile);
+        }
+
+        /** @return bytes allocated per request by the workers, or -1 if unknown */
+        public double getAllocatedBytesPerRequest() {
+            return allocatedBytes < 0 || requests == 0 ? -1 : (double) allocatedBytes / requests;
+        }
+
+        /**
+         * @return these results as one line of JSON, with latencies in
+         *         microseconds
+         */
+        public String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"threads\":%d,\"targetRate\":%.1f,\"requests\":%d,\"seconds\":%.3f,"
+                    + "\"opsPerSecond\":%.1f,\"latencyMicros\":{\"p50\":%.1f,\"p99\":%.1f,"
+                    + "\"p99.9\":%.1f,\"max\":%.1f,\"mean\":%.1f},"
+                    + "\"gc\":{\"collections\":%d,\"pauseMillis\":%d},\"allocatedBytesPerRequest\":%.1f}",
+                    threads, rate, requests, nanos / 1e9, getOpsPerSecond(),
+                    latency.percentile(50) / 1e3, latency.percentile(99) / 1e3,
+                    latency.percentile(99.9) / 1e3, latency.max() / 1e3, latency.mean() / 1e3,
+                    collections, collectionMillis, getAllocatedBytesPerRequest());
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+
+    /**
+     * Replay inputs against a poet.
+     *
+     * @param poet poet to call; it must not be modified during the run
+     * @param inputs nonempty inputs, replayed in order and repeated as needed
+     * @param threads positive number of worker threads
+     * @param rate open-loop target in requests per second, or 0 for
+     *             closed-loop
+     * @param requests number of requests to measure
+     * @return the measurements
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public static Result run(GraphPoet poet, List<String> inputs, int threads, double rate,
+            long requests) throws InterruptedException {
+        if (inputs.isEmpty() || threads < 1 || rate < 0 || requests < 0) {
+            throw new IllegalArgumentException("Need inputs, threads, and non-negative rate and requests");
+        }
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long collectionsBefore = collections(collectors, false);
+        long millisBefore = collections(collectors, true);
+
+        AtomicLong next = new AtomicLong();
+        AtomicLong allocated = new AtomicLong();
+        LatencyHistogram[] latencies = new LatencyHistogram[threads];
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        long[] start = new long[1];
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            LatencyHistogram latency = new LatencyHistogram();
+            latencies[t] = latency;
+            done.add(workers.submit(() -> {
+                ready.countDown();
+                go.await();
+                long allocatedBefore = allocatedBytes();
+                for (long i; (i = next.getAndIncrement()) < requests; ) {
+                    long scheduled;
+                    if (rate > 0) {
+                        scheduled = start[0] + (long) (i * 1e9 / rate);
+                        for (long wait; (wait = scheduled - System.nanoTime()) > 0; ) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    } else {
+                        scheduled = System.nanoTime();
+                    }
+                    poet.poem(inputs.get((int) (i % inputs.size())));
+                    latency.record(System.nanoTime() - scheduled);
+                }
+                long allocatedAfter = allocatedBytes();
+                allocated.accumulateAndGet(allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore,
+                        (a, b) -> a < 0 || b < 0 ? -1 : a + b);
+                return null;
+            }));
+        }
+        ready.await();
+        start[0] = System.nanoTime();
+        go.countDown();
+        try {
+            for (Future<?> worker : done) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        long nanos = System.nanoTime() - start[0];
+
+        LatencyHistogram latency = new LatencyHistogram();
+        for (LatencyHistogram each : latencies) {
+            latency.add(each);
+        }
+        return new Result(threads, rate, requests, nanos, latency,
+                collections(collectors, false) - collectionsBefore,
+                collections(collectors, true) - millisBefore, allocated.get());
+    }
+
+    private static long collections(List<GarbageCollectorMXBean> collectors, boolean millis) {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, millis ? collector.getCollectionTime() : collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * @return bytes allocated so far by the current thread, or -1 if the
+     *         JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: java poet.LoadDriver corpus-file input-file"
+                + " [--threads N] [--rate R] [--requests N] [--warmup N]");
+        System.exit(2);
+    }
+
+    /**
+     * Run the load driver and print its results as JSON.
+     *
+     * @param args corpus file, input file, and options as described above
+     * @throws IOException if the corpus or input file cannot be read
+     * @throws InterruptedException if interrupted during the run
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            usage("Missing corpus or input file");
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        double rate = 0;
+        long requests = 100000;
+        long warmup = 10000;
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                usage("Missing value for " + args[i]);
+            }
+            try {
+                switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--rate": rate = Double.parseDouble(args[i + 1]); break;
+                case "--requests": requests = Long.parseLong(args[i + 1]); break;
+                case "--warmup": warmup = Long.parseLong(args[i + 1]); break;
+                default: usage("Unknown option " + args[i]);
+                }
+            } catch (NumberFormatException e) {
+                usage("Bad value for " + args[i]);
+            }
+            // without --rate the driver runs closed-loop; a given rate must be positive
+            if (threads < 1 || requests < 1 || warmup < 0
+                    || (args[i].equals("--rate") && !(rate > 0 && rate <= Double.MAX_VALUE))) {
+                usage("Bad value for " + args[i]);
+            }
+        }
+        GraphPoet poet = new GraphPoet(new File(args[0]));
+        List<String> inputs = Files.readAllLines(new File(args[1]).toPath(), StandardCharsets.UTF_8);
+        if (warmup > 0) {
+            run(poet, inputs, threads, 0, warmup);
+        }
+        System.out.println(run(poet, inputs, threads, rate, requests).toJson());
+    }
+}
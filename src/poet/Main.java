@@ -14,12 +14,28 @@ import java.io.IOException;
 public class Main {
     
     /**
-     * Generate example poetry.
+     * Generate example poetry, or serve poems over HTTP.
      * 
-     * @param args unused
-     * @throws IOException if a poet corpus file cannot be found or read
+     * <p>With no arguments, prints an example poem. With arguments
+     * {@code serve corpus-file [port [threads]]}, loads the corpus once and
+     * runs a PoemServer until the process is killed.
+     * 
+     * @param args optional command, as above
+     * @throws IOException if a poet corpus file cannot be found or read, or
+     *                     the server port cannot be bound
      */
     public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("serve")) {
+            final GraphPoet poet = new GraphPoet(new File(args[1]));
+            final int port = args.length > 2 ? Integer.parseInt(args[2]) : 8080;
+            final int threads = args.length > 3 ? Integer.parseInt(args[3])
+                    : Runtime.getRuntime().availableProcessors() * 4;
+            final PoemServer server = new PoemServer(poet, port, threads);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            System.out.println("Serving " + poet + " on port " + server.getPort());
+            return;
+        }
         final GraphPoet nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
         final String input = "Test the system.";
         System.out.println(input + "\n>>>\n" + nimoy.poem(input));
@@ -0,0 +1,185 @@
+package poet;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the words of a UTF-8 corpus file by mapping it into memory in
+ * fixed-size windows and decoding tokens directly from the mapped bytes.
+ *
+ * <p>A word is a maximal run of non-whitespace characters with every
+ * character that is not a letter or digit removed, converted to lower case;
+ * runs that are left empty are skipped. This matches splitting each line on
+ * "\\s+" and cleaning each piece, without copying the file into the heap.
+ */
+class MappedCorpusReader implements Closeable {
+
+    /** Default number of bytes mapped at a time. */
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    // longest UTF-8 sequence; a window is remapped before it can split one
+    private static final int MAX_SEQUENCE = 4;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private char[] word = new char[32];
+
+    // Abstraction function:
+    //   Represents the sequence of words in the file behind channel that
+    //   start at or after byte offset windowStart + window.position()
+
+    // Representation invariant:
+    //   - windowSize >= MAX_SEQUENCE
+    //   - 0 <= windowStart <= size
+    //   - window maps bytes [windowStart, windowStart + window.limit())
+    //   - window position is never inside a UTF-8 sequence
+
+    // Safety from rep exposure:
+    //   - all fields are private
+    //   - nextWord() returns immutable Strings
+
+    /**
+     * Open a corpus file for reading with the default window size.
+     *
+     * @param corpus file to read, encoded as UTF-8
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedCorpusReader(File corpus) throws IOException {
+        this(corpus, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Open a corpus file for reading.
+     *
+     * @param corpus file to read, encoded as UTF-8
+     * @param windowSize number of bytes to map at a time, at least 4
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedCorpusReader(File corpus, int windowSize) throws IOException {
+        if (windowSize < MAX_SEQUENCE) {
+            throw new IllegalArgumentException("Window size must be at least " + MAX_SEQUENCE);
+        }
+        this.channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        map(0);
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert windowSize >= MAX_SEQUENCE;
+        assert windowStart >= 0 && windowStart <= size;
+        assert windowStart + window.limit() <= size;
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        long length = Math.min(windowSize, size - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+
+    /**
+     * Make sure a whole UTF-8 sequence can be read from the window.
+     *
+     * @return false if the end of the file has been reached
+     */
+    private boolean fill() throws IOException {
+        if (window.remaining() >= MAX_SEQUENCE) {
+            return true;
+        }
+        long position = windowStart + window.position();
+        if (position >= size) {
+            return false;
+        }
+        if (windowStart + window.limit() < size) {
+            map(position);
+        }
+        return true;
+    }
+
+    /**
+     * Read the next word of the corpus.
+     *
+     * @return the next non-empty word, cleaned and in lower case, or null if
+     *         there are no more words
+     * @throws IOException if the file cannot be mapped
+     */
+    public String nextWord() throws IOException {
+        int length = 0;
+        while (fill()) {
+            int b = window.get();
+            int c;
+            if (b >= 0) {
+                // ASCII fast path
+                if (isWhitespace(b)) {
+                    if (length > 0) {
+                        break;
+                    }
+                } else if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')) {
+                    length = append(length, (char) b);
+                }
+                continue;
+            } else if ((b & 0xE0) == 0xC0) {
+                c = decode(b & 0x1F, 1, 0x80);
+            } else if ((b & 0xF0) == 0xE0) {
+                c = decode(b & 0x0F, 2, 0x800);
+            } else {
+                // 4-byte sequences decode to surrogate pairs, which are never
+                // letters or digits, and stray bytes decode to U+FFFD
+                c = decode(0, 3, 0);
+            }
+            if (c >= 0 && Character.isLetterOrDigit((char) c)) {
+                length = append(length, (char) c);
+            }
+        }
+        return length == 0 ? null : new String(word, 0, length).toLowerCase();
+    }
+
+    /**
+     * Consume the continuation bytes of a UTF-8 sequence.
+     *
+     * @return the decoded character, or -1 if the sequence is malformed
+     */
+    private int decode(int lead, int continuations, int min) {
+        int c = lead;
+        for (int i = 0; i < continuations; i++) {
+            if (!window.hasRemaining() || (window.get(window.position()) & 0xC0) != 0x80) {
+                return -1;
+            }
+            c = (c << 6) | (window.get() & 0x3F);
+        }
+        return c >= min && min > 0 ? c : -1;
+    }
+
+    private int append(int length, char c) {
+        if (length == word.length) {
+            char[] grown = new char[word.length * 2];
+            System.arraycopy(word, 0, grown, 0, length);
+            word = grown;
+        }
+        word[length] = c;
+        return length + 1;
+    }
+
+    // the characters matched by \s in java.util.regex
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MappedCorpusReader at byte %d of %d", windowStart + window.position(), size);
+    }
+}
@@ -0,0 +1,339 @@
+package poet;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An HTTP service that writes poems with one GraphPoet loaded at startup.
+ *
+ * <p>Endpoints:
+ * <ul>
+ * <li>POST /poem with the input text as a UTF-8 body responds with the
+ *     poem as text/plain. Bodies up to STREAM_THRESHOLD bytes, whether
+ *     sent with a Content-Length or chunked, are micro-batched: requests arriving within BATCH_WINDOW_MILLIS of each
+ *     other are answered together, sharing one memo of bridge lookups.
+ *     Larger bodies are streamed, read and answered one line at a time, so
+ *     no bridge is added across a line break.
+ * <li>GET /health responds with status and request metrics as JSON.
+ * </ul>
+ *
+ * <p>Requests are handled on a fixed pool of threads. A single batching
+ * thread gathers batches, and each batch is computed on a pool of worker
+ * threads, one per processor, so several batches are written at once.
+ */
+public class PoemServer {
+
+    /** Largest body, in bytes, answered in a batch rather than streamed. */
+    public static final int STREAM_THRESHOLD = 64 * 1024;
+    /** Longest wait, in milliseconds, for more requests to join a batch. */
+    public static final long BATCH_WINDOW_MILLIS = 2;
+    /** Most requests answered in one batch. */
+    public static final int MAX_BATCH = 256;
+
+    private final GraphPoet poet;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ExecutorService workers;
+    private final Thread batcher;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final long started = System.nanoTime();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batched = new AtomicLong();
+    private final AtomicLong streamed = new AtomicLong();
+    private final AtomicLong latencyNanos = new AtomicLong();
+    private volatile boolean running = false;
+
+    // Abstraction function:
+    //   Represents an HTTP service at server's address answering with poet;
+    //   queue holds the batched requests not yet answered, and the counters
+    //   are the metrics reported by /health since started
+
+    // Representation invariant:
+    //   - poet, server, handlers, workers, batcher, queue not null
+    //   - all counters are nonnegative, batched <= requests
+
+    // Safety from rep exposure:
+    //   - all fields are private; poet is only read
+
+    /**
+     * A batched request awaiting its poem.
+     */
+    private static final class Request {
+        private final String input;
+        private final CompletableFuture<String> poem = new CompletableFuture<>();
+
+        private Request(String input) {
+            this.input = input;
+        }
+    }
+
+    /**
+     * Requests answered together, sharing one memo of bridge lookups.
+     */
+    private final class Batch implements Runnable {
+        private final List<Request> requests;
+
+        private Batch(List<Request> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public void run() {
+            Map<String, String> bridges = new HashMap<>();
+            for (Request request : requests) {
+                try {
+                    request.poem.complete(poet.poem(request.input, bridges));
+                } catch (RuntimeException e) {
+                    request.poem.completeExceptionally(e);
+                }
+            }
+            batches.incrementAndGet();
+            batched.addAndGet(requests.size());
+        }
+
+        private void cancel() {
+            for (Request request : requests) {
+                request.poem.completeExceptionally(new CancellationException("server stopped"));
+            }
+        }
+    }
+
+    /**
+     * Make a server; it does not accept connections until started.
+     *
+     * @param poet poet that writes every poem; it must not be modified while
+     *             the server runs
+     * @param port port to listen on, or 0 for any free port
+     * @param threads positive number of threads handling connections
+     * @throws IOException if the port cannot be bound
+     */
+    public PoemServer(GraphPoet poet, int port, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one handler thread");
+        }
+        this.poet = poet;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.handlers = Executors.newFixedThreadPool(threads);
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.batcher = new Thread(this::batchLoop, "poem-batcher");
+        batcher.setDaemon(true);
+        server.setExecutor(handlers);
+        server.createContext("/poem", this::handlePoem);
+        server.createContext("/health", this::handleHealth);
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert poet != null && server != null && handlers != null && workers != null;
+        assert batcher != null && queue != null;
+        assert batched.get() >= 0 && requests.get() >= 0 && errors.get() >= 0;
+    }
+
+    /**
+     * Start accepting connections.
+     */
+    public void start() {
+        running = true;
+        batcher.start();
+        server.start();
+    }
+
+    /**
+     * Stop accepting connections, wait up to a second for open exchanges to
+     * finish, and release all threads.
+     */
+    public void stop() {
+        running = false;
+        server.stop(1);
+        handlers.shutdownNow();
+        batcher.interrupt();
+        for (Runnable batch : workers.shutdownNow()) {
+            ((Batch) batch).cancel();
+        }
+        for (Request request; (request = queue.poll()) != null; ) {
+            request.poem.completeExceptionally(new CancellationException("server stopped"));
+        }
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void batchLoop() {
+        List<Request> batch = new ArrayList<>();
+        try {
+            while (running) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW_MILLIS);
+                while (batch.size() < MAX_BATCH) {
+                    Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                Batch work = new Batch(batch);
+                batch = new ArrayList<>();
+                try {
+                    workers.execute(work);
+                } catch (RejectedExecutionException e) {
+                    work.cancel();
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+        for (Request request : batch) {
+            request.poem.completeExceptionally(new CancellationException("server stopped"));
+        }
+    }
+
+    private void handlePoem(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        requests.incrementAndGet();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "text/plain", "Use POST with the input text as the body\n");
+                errors.incrementAndGet();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            long length = contentLength(exchange.getRequestHeaders().getFirst("Content-Length"));
+            if (length < -1) {
+                respond(exchange, 400, "text/plain", "Malformed Content-Length\n");
+                errors.incrementAndGet();
+                return;
+            }
+            InputStream body = exchange.getRequestBody();
+            if (length > STREAM_THRESHOLD) {
+                streamPoem(exchange, body);
+                return;
+            }
+            // a body without a length, such as a chunked one, is buffered up
+            // to the threshold, so only its size decides whether it streams
+            byte[] head = readUpTo(body, STREAM_THRESHOLD + 1);
+            if (head.length > STREAM_THRESHOLD) {
+                streamPoem(exchange, new SequenceInputStream(new ByteArrayInputStream(head), body));
+                return;
+            }
+            String input = new String(head, StandardCharsets.UTF_8);
+            Request request = new Request(input);
+            queue.add(request);
+            String poem;
+            try {
+                poem = request.poem.get();
+            } catch (InterruptedException | CancellationException e) {
+                respond(exchange, 503, "text/plain", "Server stopping\n");
+                errors.incrementAndGet();
+                return;
+            } catch (ExecutionException e) {
+                respond(exchange, 500, "text/plain", "Failed to write poem\n");
+                errors.incrementAndGet();
+                return;
+            }
+            respond(exchange, 200, "text/plain; charset=utf-8", poem);
+        } catch (IOException | RuntimeException e) {
+            errors.incrementAndGet();
+            throw e;
+        } finally {
+            latencyNanos.addAndGet(System.nanoTime() - start);
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param length value of a Content-Length header, or null if absent
+     * @return the length, -1 if there is none, or -2 if it is not a
+     *         nonnegative decimal number
+     */
+    static long contentLength(String length) {
+        if (length == null) {
+            return -1;
+        }
+        try {
+            long value = Long.parseLong(length.trim());
+            return value >= 0 ? value : -2;
+        } catch (NumberFormatException e) {
+            return -2;
+        }
+    }
+
+    private void streamPoem(HttpExchange exchange, InputStream body) throws IOException {
+        streamed.incrementAndGet();
+        exchange.sendResponseHeaders(200, 0);
+        BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        Map<String, String> bridges = new HashMap<>();
+        boolean first = true;
+        for (String line; (line = in.readLine()) != null; ) {
+            if (!first) {
+                out.write('\n');
+            }
+            out.write(poet.poem(line, bridges));
+            first = false;
+        }
+        out.flush();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            long requestCount = requests.get();
+            long batchCount = batches.get();
+            String json = String.format(Locale.ROOT,
+                    "{\"status\":\"%s\",\"uptimeSeconds\":%.3f,\"requests\":%d,\"errors\":%d,"
+                    + "\"batches\":%d,\"batchedRequests\":%d,\"meanBatchSize\":%.3f,"
+                    + "\"streamedRequests\":%d,\"meanLatencyMillis\":%.3f,\"queued\":%d}\n",
+                    running ? "ok" : "stopping",
+                    (System.nanoTime() - started) / 1e9,
+                    requestCount, errors.get(), batchCount, batched.get(),
+                    batchCount == 0 ? 0.0 : (double) batched.get() / batchCount,
+                    streamed.get(),
+                    requestCount == 0 ? 0.0 : latencyNanos.get() / 1e6 / requestCount,
+                    queue.size());
+            respond(exchange, 200, "application/json", json);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String type, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @return the bytes of in up to its end or limit bytes, whichever is first
+     */
+    private static byte[] readUpTo(InputStream in, int limit) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; bytes.size() < limit
+                && (n = in.read(buffer, 0, Math.min(buffer.length, limit - bytes.size()))) > 0; ) {
+            bytes.write(buffer, 0, n);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoemServer on port %d with %d requests", getPort(), requests.get());
+    }
+}
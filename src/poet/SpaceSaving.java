@@ -0,0 +1,107 @@
+package poet;
+
+import java.util.*;
+
+/**
+ * Space-Saving summary of the most frequent words following one word.
+ *
+ * <p>Keeps at most capacity counters. A word that is not tracked replaces
+ * the word with the smallest count and inherits that count as its error.
+ * Every word whose true frequency exceeds total / capacity is tracked, and
+ * every tracked count exceeds the true count by at most its error.
+ */
+class SpaceSaving {
+
+    private final String[] words;
+    private final int[] counts;
+    private final int[] errors;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int size;
+
+    // Abstraction function:
+    //   Represents approximate counts of the words offered so far, where
+    //   words[i] has estimated count counts[i] with overestimate at most
+    //   errors[i] for 0 <= i < size, and other words are estimated as zero
+
+    // Representation invariant:
+    //   - 0 <= size <= words.length == counts.length == errors.length
+    //   - slots maps exactly words[0 .. size) to their indexes
+    //   - 0 <= errors[i] < counts[i] for 0 <= i < size
+
+    // Safety from rep exposure:
+    //   - all fields are private and arrays are never returned
+    //   - top() returns a new map
+
+    /**
+     * Make an empty summary.
+     *
+     * @param capacity positive maximum number of words tracked; replacing
+     *                 the smallest count scans all counters, so capacity
+     *                 should be small
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        words = new String[capacity];
+        counts = new int[capacity];
+        errors = new int[capacity];
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert size >= 0 && size <= words.length;
+        assert slots.size() == size;
+    }
+
+    /**
+     * Count one occurrence of a word.
+     *
+     * @param word a word
+     */
+    public void offer(String word) {
+        Integer slot = slots.get(word);
+        if (slot != null) {
+            counts[slot]++;
+        } else if (size < words.length) {
+            words[size] = word;
+            counts[size] = 1;
+            errors[size] = 0;
+            slots.put(word, size++);
+        } else {
+            int min = 0;
+            for (int i = 1; i < size; i++) {
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            slots.remove(words[min]);
+            words[min] = word;
+            errors[min] = counts[min];
+            counts[min]++;
+            slots.put(word, min);
+        }
+    }
+
+    /**
+     * Get the tracked words whose estimated count reaches a threshold.
+     *
+     * @param threshold minimum count
+     * @return map from each tracked word whose estimated count is at least
+     *         threshold to that estimated count
+     */
+    public Map<String, Integer> top(int threshold) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (counts[i] >= threshold) {
+                result.put(words[i], counts[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SpaceSaving tracking %d of %d words", size, words.length);
+    }
+}
@@ -0,0 +1,185 @@
+package poet;
+
+import java.util.Locale;
+
+/**
+ * Splits poem input into words in a single pass, without allocating per
+ * character or per slice.
+ *
+ * <p>The words are the pieces of {@code input.trim().split("\\s+")}. For the
+ * current word the scanner keeps its letters and digits (the clean word),
+ * its other characters (the punctuation), and the clean word in lower case
+ * as a lookup key. Buffers are reused from word to word, so the key is the
+ * only object created per word.
+ */
+class WordScanner {
+
+    // toLowerCase() maps ASCII letters outside a-z only in these languages
+    private static final boolean ASCII_LOWER_CASE_SAFE =
+            !"tr".equals(Locale.getDefault().getLanguage())
+            && !"az".equals(Locale.getDefault().getLanguage());
+
+    private final String input;
+    private final int end;
+    private int position;
+    private char[] clean = new char[32];
+    private int cleanLength;
+    private char[] lower = new char[32];
+    private char[] punctuation = new char[8];
+    private int punctuationLength;
+    private String key;
+
+    // Abstraction function:
+    //   Represents the words of input[position .. end) still to be scanned,
+    //   where the word scanned last has letters and digits
+    //   clean[0 .. cleanLength), other characters
+    //   punctuation[0 .. punctuationLength), and lower-case clean word key
+
+    // Representation invariant:
+    //   - 0 <= position <= end <= input.length()
+    //   - 0 <= cleanLength <= clean.length
+    //   - 0 <= punctuationLength <= punctuation.length
+    //   - key is null before the first word, otherwise key has the
+    //     lower-case characters of clean[0 .. cleanLength)
+
+    // Safety from rep exposure:
+    //   - all fields are private
+    //   - buffers are only copied out through append methods
+    //   - key is an immutable String
+
+    /**
+     * Make a scanner over the words of input.
+     *
+     * @param input text to split; leading and trailing characters up to
+     *              U+0020 are ignored, as by {@link String#trim()}
+     */
+    public WordScanner(String input) {
+        this.input = input;
+        int start = 0;
+        int stop = input.length();
+        while (start < stop && input.charAt(start) <= ' ') {
+            start++;
+        }
+        while (stop > start && input.charAt(stop - 1) <= ' ') {
+            stop--;
+        }
+        this.position = start;
+        this.end = stop;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert input != null;
+        assert 0 <= position && position <= end && end <= input.length();
+        assert cleanLength <= clean.length;
+        assert punctuationLength <= punctuation.length;
+    }
+
+    /**
+     * Advance to the next word.
+     *
+     * @return true if there was another word; otherwise false, and the
+     *         previous word stays current
+     */
+    public boolean next() {
+        while (position < end && isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        if (position >= end) {
+            return false;
+        }
+        cleanLength = 0;
+        punctuationLength = 0;
+        boolean ascii = true;
+        boolean upper = false;
+        for (; position < end; position++) {
+            char c = input.charAt(position);
+            if (c < 0x80) {
+                // ASCII fast path
+                if (isWhitespace(c)) {
+                    break;
+                } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                    appendClean(c);
+                } else if (c >= 'A' && c <= 'Z') {
+                    appendClean(c);
+                    upper = true;
+                } else {
+                    appendPunctuation(c);
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                appendClean(c);
+                ascii = false;
+            } else {
+                appendPunctuation(c);
+            }
+        }
+        key = lowerCase(ascii, upper);
+        checkRep();
+        return true;
+    }
+
+    private String lowerCase(boolean ascii, boolean upper) {
+        if (cleanLength == 0) {
+            return "";
+        } else if (!ascii || (upper && !ASCII_LOWER_CASE_SAFE)) {
+            return new String(clean, 0, cleanLength).toLowerCase();
+        } else if (!upper) {
+            return new String(clean, 0, cleanLength);
+        }
+        if (lower.length < cleanLength) {
+            lower = new char[clean.length];
+        }
+        for (int i = 0; i < cleanLength; i++) {
+            char c = clean[i];
+            lower[i] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(lower, 0, cleanLength);
+    }
+
+    private void appendClean(char c) {
+        if (cleanLength == clean.length) {
+            char[] grown = new char[clean.length * 2];
+            System.arraycopy(clean, 0, grown, 0, cleanLength);
+            clean = grown;
+        }
+        clean[cleanLength++] = c;
+    }
+
+    private void appendPunctuation(char c) {
+        if (punctuationLength == punctuation.length) {
+            char[] grown = new char[punctuation.length * 2];
+            System.arraycopy(punctuation, 0, grown, 0, punctuationLength);
+            punctuation = grown;
+        }
+        punctuation[punctuationLength++] = c;
+    }
+
+    /**
+     * Append the current word as cleaned text followed by its punctuation,
+     * preserving case.
+     *
+     * @param out destination
+     */
+    public void appendWord(StringBuilder out) {
+        out.append(clean, 0, cleanLength).append(punctuation, 0, punctuationLength);
+    }
+
+    /**
+     * Get the lookup key of the current word.
+     *
+     * @return letters and digits of the current word, in lower case
+     */
+    public String key() {
+        return key;
+    }
+
+    // the characters matched by \s in java.util.regex
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WordScanner at %d of %d", position, end);
+    }
+}
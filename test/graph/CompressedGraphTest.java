@@ -0,0 +1,116 @@
+package graph;
+
+import static org.junit.Assert.*;
+import java.util.*;
+import org.junit.Test;
+
+public class CompressedGraphTest {
+
+    // Testing strategy for CompressedGraph
+    //   source graph: empty, vertices only, edges with small and large weights,
+    //                 self loops, many neighbors
+    //   observers: vertices(), sources(), targets(), forEachTarget(), forEachSource(),
+    //              weight()
+    //   labels: present, absent
+    //   mutators: always throw UnsupportedOperationException
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static Graph<String> sample() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("lonely");
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 300);
+        graph.set("c", "a", 2);
+        graph.set("b", "b", 5);
+        graph.set("c", "b", Integer.MAX_VALUE);
+        return graph;
+    }
+
+    @Test
+    public void testEmpty() {
+        CompressedGraph graph = new CompressedGraph(new ConcreteEdgesGraph());
+        assertEquals("expected no vertices", Collections.emptySet(), graph.vertices());
+        assertTrue("expected no targets", graph.targets("a").isEmpty());
+        assertTrue("expected no sources", graph.sources("a").isEmpty());
+    }
+
+    @Test
+    public void testMatchesSource() {
+        Graph<String> original = sample();
+        CompressedGraph graph = new CompressedGraph(original);
+        assertEquals("vertices incorrect", original.vertices(), graph.vertices());
+        for (String v : original.vertices()) {
+            assertEquals("targets incorrect for " + v, original.targets(v), graph.targets(v));
+            assertEquals("sources incorrect for " + v, original.sources(v), graph.sources(v));
+        }
+        assertFalse("absent vertex reported", graph.vertices().contains("z"));
+        assertTrue("absent vertex has targets", graph.targets("z").isEmpty());
+    }
+
+    @Test
+    public void testStreamingInSortedOrder() {
+        CompressedGraph graph = new CompressedGraph(sample());
+        List<String> seen = new ArrayList<>();
+        graph.forEachSource("b", (label, weight) -> seen.add(label + "=" + weight));
+        assertEquals("sources streamed incorrectly",
+                    Arrays.asList("a=1", "b=5", "c=" + Integer.MAX_VALUE), seen);
+        seen.clear();
+        graph.forEachTarget("a", (label, weight) -> seen.add(label + "=" + weight));
+        assertEquals("targets streamed incorrectly", Arrays.asList("b=1", "c=300"), seen);
+    }
+
+    @Test
+    public void testManyNeighbors() {
+        Graph<String> original = new ConcreteVerticesGraph();
+        for (int i = 0; i < 500; i++) {
+            original.set("hub", "w" + i, i % 7 + 1);
+            original.set("w" + i, "w" + ((i * 31) % 500), 1);
+        }
+        CompressedGraph graph = new CompressedGraph(original);
+        for (String v : original.vertices()) {
+            assertEquals("targets incorrect for " + v, original.targets(v), graph.targets(v));
+            assertEquals("sources incorrect for " + v, original.sources(v), graph.sources(v));
+        }
+        assertTrue("expected about two bytes per edge direction",
+                  graph.encodedBytes() < 2 * 1000 * 4);
+    }
+
+    @Test
+    public void testWeight() {
+        Graph<String> original = sample();
+        CompressedGraph graph = new CompressedGraph(original);
+        for (String source : original.vertices()) {
+            for (String target : original.vertices()) {
+                Integer weight = original.targets(source).get(target);
+                assertEquals("weight incorrect from " + source + " to " + target,
+                            weight != null ? (int) weight : 0, graph.weight(source, target));
+            }
+        }
+        assertEquals("absent source", 0, graph.weight("z", "a"));
+        assertEquals("absent target", 0, graph.weight("a", "z"));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAddUnsupported() {
+        new CompressedGraph(sample()).add("x");
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSetUnsupported() {
+        new CompressedGraph(sample()).set("a", "b", 2);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRemoveUnsupported() {
+        new CompressedGraph(sample()).remove("a");
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testVerticesUnmodifiable() {
+        new CompressedGraph(sample()).vertices().remove("a");
+    }
+}
@@ -2,6 +2,8 @@ package graph;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
+import java.util.*;
+import java.util.concurrent.*;
 
 public class ConcreteEdgesGraphTest extends GraphInstanceTest {
     
@@ -40,6 +42,116 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
                   result.contains("A -> B (1)"));
     }
     
+    // Testing strategy for ConcreteEdgesGraph bulk removal and compaction
+    //   removeAll: present and absent labels, sources and targets of edges
+    //   removeIf: matching none, some
+    //   tombstones: removed label added again, threshold reached,
+    //               compact() explicitly
+    //   compactInBackground: nothing to compact, swapped in, stale
+    
+    private static ConcreteEdgesGraph chain(int length) {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        for (int i = 0; i + 1 < length; i++) {
+            graph.set("v" + i, "v" + (i + 1), i + 1);
+        }
+        return graph;
+    }
+    
+    @Test
+    public void testRemoveAll() {
+        ConcreteEdgesGraph graph = chain(5);
+        assertEquals("removed count", 2, graph.removeAll(Arrays.asList("v1", "v3", "absent")));
+        assertEquals("remaining vertices",
+                    new HashSet<>(Arrays.asList("v0", "v2", "v4")), graph.vertices());
+        assertTrue("edges of removed vertices hidden", graph.targets("v0").isEmpty());
+        assertTrue("edges of removed vertices hidden", graph.sources("v4").isEmpty());
+        assertTrue("removed vertex has no targets", graph.targets("v1").isEmpty());
+        assertFalse("dead edges not printed", graph.toString().contains("v1"));
+    }
+    
+    @Test
+    public void testRemoveIf() {
+        ConcreteEdgesGraph graph = chain(10);
+        assertEquals("nothing matches", 0, graph.removeIf(v -> v.startsWith("x")));
+        assertEquals("odd labels", 5, graph.removeIf(v -> (v.charAt(1) - '0') % 2 == 1));
+        assertEquals("remaining", 5, graph.vertices().size());
+        for (String v : graph.vertices()) {
+            assertTrue("no edges left", graph.targets(v).isEmpty() && graph.sources(v).isEmpty());
+        }
+    }
+    
+    @Test
+    public void testRemovedLabelAddedAgain() {
+        ConcreteEdgesGraph graph = chain(3);
+        assertTrue("remove", graph.remove("v1"));
+        assertFalse("remove again", graph.remove("v1"));
+        assertTrue("add again", graph.add("v1"));
+        assertTrue("old edges must not come back", graph.targets("v1").isEmpty());
+        assertTrue("old edges must not come back", graph.sources("v1").isEmpty());
+        assertEquals("new edge only", 0, graph.set("v0", "v1", 7));
+        assertEquals("new edge weight", 7, (int) graph.targets("v0").get("v1"));
+    }
+    
+    @Test
+    public void testCompactionPurgesEdges() {
+        ConcreteEdgesGraph graph = chain(ConcreteEdgesGraph.COMPACTION_THRESHOLD + 10);
+        long full = graph.estimatedHeapBytes();
+        graph.remove("v0");
+        assertTrue("dead edge still held before compaction", graph.estimatedHeapBytes() > full - 24);
+        graph.compact();
+        assertTrue("dead edge purged", graph.estimatedHeapBytes() < full);
+        List<String> many = new ArrayList<>();
+        for (int i = 1; i <= ConcreteEdgesGraph.COMPACTION_THRESHOLD; i++) {
+            many.add("v" + i);
+        }
+        graph.removeAll(many);
+        assertTrue("threshold compacts",
+                  graph.estimatedHeapBytes() < HeapFootprint.of(chain(12)));
+    }
+    
+    @Test
+    public void testCompactInBackground() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ConcreteEdgesGraph graph = chain(20);
+            assertFalse("nothing to compact", graph.compactInBackground(executor).get());
+            graph.removeAll(Arrays.asList("v3", "v4", "v5"));
+            assertTrue("swapped in", graph.compactInBackground(executor).get());
+            assertEquals("edges after compaction", 15, countEdges(graph));
+            
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            graph.remove("v10");
+            CompletableFuture<Boolean> stale = graph.compactInBackground(executor);
+            graph.set("v0", "v1", 99);
+            release.countDown();
+            assertFalse("stale copy discarded", stale.get());
+            assertEquals("edge change kept", 99, (int) graph.targets("v0").get("v1"));
+            assertTrue("v10 still removed", graph.targets("v9").isEmpty());
+            graph.compact();
+            assertEquals("edges after compaction", 13, countEdges(graph));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static int countEdges(Graph<String> graph) {
+        int count = 0;
+        for (String v : graph.vertices()) {
+            count += graph.targets(v).size();
+        }
+        return count;
+    }
+    
     // Testing strategy for Edge
     //   constructor:
     //     - valid inputs
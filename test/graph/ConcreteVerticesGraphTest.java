@@ -2,6 +2,9 @@ package graph;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 
 public class ConcreteVerticesGraphTest extends GraphInstanceTest {
@@ -94,4 +97,37 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertEquals("target weight incorrect", 
                     2, (int)targets.get("C"));
     }
-}
\ No newline at end of file
+    
+    // Testing strategy for ConcreteVerticesGraph.removeAll() and removeIf()
+    //   labels present and absent; removed vertices with incoming and
+    //   outgoing edges; condition matching none, some, all
+    
+    @Test
+    public void testRemoveAll() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.set("C", "A", 3);
+        graph.set("C", "D", 4);
+        assertEquals("removed count", 2, graph.removeAll(Arrays.asList("A", "D", "Z")));
+        assertEquals("remaining vertices",
+                    new HashSet<>(Arrays.asList("B", "C")), graph.vertices());
+        assertEquals("outgoing edges of C", Collections.emptyMap(), graph.targets("C"));
+        assertEquals("surviving edge", 2, (int) graph.targets("B").get("C"));
+    }
+    
+    @Test
+    public void testRemoveIf() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        for (int i = 0; i < 10; i++) {
+            graph.set("v" + i, "v" + ((i + 1) % 10), 1);
+        }
+        assertEquals("nothing matches", 0, graph.removeIf(v -> v.startsWith("x")));
+        assertEquals("even labels", 5, graph.removeIf(v -> (v.charAt(1) - '0') % 2 == 0));
+        for (String v : graph.vertices()) {
+            assertTrue("no edges left", graph.targets(v).isEmpty() && graph.sources(v).isEmpty());
+        }
+        assertEquals("all", 5, graph.removeIf(v -> true));
+        assertTrue("empty", graph.vertices().isEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+package graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs one operation sequence against several Graph implementations,
+ * checking that every result and the final graphs agree, and measuring the
+ * throughput of each implementation.
+ *
+ * <p>Run main to compare the implementations at a larger scale:
+ * {@code java -ea graph.GraphDifferential [vertices] [operations] [seed]}
+ */
+public class GraphDifferential {
+
+    private GraphDifferential() {
+        throw new AssertionError("GraphDifferential is not instantiable");
+    }
+
+    /**
+     * Run operations on a fresh graph from each implementation.
+     *
+     * @param implementations named suppliers of empty graphs; the first is
+     *                        the reference
+     * @param operations operations to run
+     * @return operations per second of each implementation, in the same order
+     * @throws AssertionError if any implementation disagrees with the
+     *                        reference on an operation result or on the
+     *                        final graph
+     */
+    public static Map<String, Double> run(Map<String, Supplier<Graph<String>>> implementations,
+            List<GraphWorkload.Operation> operations) {
+        List<Object> expected = null;
+        Graph<String> reference = null;
+        Map<String, Double> throughput = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Graph<String>>> implementation : implementations.entrySet()) {
+            Graph<String> graph = implementation.getValue().get();
+            List<Object> results = new ArrayList<>(operations.size());
+            long start = System.nanoTime();
+            for (GraphWorkload.Operation operation : operations) {
+                results.add(operation.apply(graph));
+            }
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            throughput.put(implementation.getKey(), operations.size() * 1e9 / elapsed);
+
+            if (expected == null) {
+                expected = results;
+                reference = graph;
+                continue;
+            }
+            for (int i = 0; i < results.size(); i++) {
+                if (!Objects.equals(expected.get(i), results.get(i))) {
+                    throw new AssertionError(implementation.getKey() + " disagrees on operation " + i
+                            + " " + operations.get(i) + ": expected " + expected.get(i)
+                            + " but was " + results.get(i));
+                }
+            }
+            if (!reference.vertices().equals(graph.vertices())) {
+                throw new AssertionError(implementation.getKey() + " has different final vertices");
+            }
+            for (String vertex : reference.vertices()) {
+                if (!reference.targets(vertex).equals(graph.targets(vertex))) {
+                    throw new AssertionError(implementation.getKey() + " has different edges from " + vertex);
+                }
+            }
+        }
+        return throughput;
+    }
+
+    /**
+     * The implementations in this package that start empty and are mutable;
+     * JournaledGraph writes its journal to a temporary directory.
+     *
+     * @return named suppliers of empty graphs, ConcreteEdgesGraph first
+     */
+    public static Map<String, Supplier<Graph<String>>> implementations() {
+        Map<String, Supplier<Graph<String>>> implementations = new LinkedHashMap<>();
+        implementations.put("ConcreteEdgesGraph", ConcreteEdgesGraph::new);
+        implementations.put("ConcreteVerticesGraph", ConcreteVerticesGraph::new);
+        implementations.put("HashGraph", HashGraph::new);
+        implementations.put("OverlayGraph", () -> new OverlayGraph(new CompressedGraph(new ConcreteEdgesGraph())));
+        implementations.put("JournaledGraph", GraphDifferential::journaled);
+        return implementations;
+    }
+
+    /**
+     * @return an empty JournaledGraph in a new temporary directory, deleted
+     *         when the JVM exits, with batches and checkpoints small enough
+     *         that a workload crosses several of each
+     */
+    private static Graph<String> journaled() {
+        try {
+            File directory = Files.createTempDirectory("differential").toFile();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                File[] files = directory.listFiles();
+                for (File file : files != null ? files : new File[0]) {
+                    file.delete();
+                }
+                directory.delete();
+            }));
+            return new JournaledGraph(directory, new ConcreteEdgesGraph(), 64, 1000);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Compare the implementations and print their throughput.
+     *
+     * @param args optional number of labels, number of operations, and seed
+     */
+    public static void main(String[] args) {
+        int vertices = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 36;
+        List<GraphWorkload.Operation> operations = GraphWorkload.operations(vertices, length, seed);
+        for (Map.Entry<String, Double> result : run(implementations(), operations).entrySet()) {
+            System.out.printf("%-24s %12.0f ops/sec%n", result.getKey(), result.getValue());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package graph;
+
+import static org.junit.Assert.*;
+import java.util.*;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class GraphDifferentialTest {
+
+    // Testing strategy
+    //   Zipf: ranks in range, skewed toward low ranks, seeded, word() distinct
+    //   GraphWorkload: same seed gives same graph and operations
+    //   GraphDifferential: all implementations agree; a wrong one is caught
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testZipf() {
+        Zipf zipf = new Zipf(100, 1.0, 1);
+        int[] counts = new int[100];
+        for (int i = 0; i < 10000; i++) {
+            counts[zipf.next()]++;
+        }
+        assertTrue("rank 0 should be about twice as common as rank 1",
+                  counts[0] > counts[1] * 1.5 && counts[0] < counts[1] * 2.5);
+        Zipf again = new Zipf(100, 1.0, 1);
+        Zipf same = new Zipf(100, 1.0, 1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("same seed should give same ranks", again.next(), same.next());
+        }
+        Set<String> words = new HashSet<>();
+        for (int r = 0; r < 1000; r++) {
+            words.add(Zipf.word(r));
+        }
+        assertEquals("words should be distinct", 1000, words.size());
+        assertEquals("first word", "a", Zipf.word(0));
+        assertEquals("word after z", "aa", Zipf.word(26));
+    }
+
+    @Test
+    public void testPowerLawGraphReproducible() {
+        Graph<String> first = GraphWorkload.powerLaw(new ConcreteEdgesGraph(), 200, 1000, 1.0, 5);
+        Graph<String> second = GraphWorkload.powerLaw(new ConcreteVerticesGraph(), 200, 1000, 1.0, 5);
+        assertEquals("same seed should give same vertices", first.vertices(), second.vertices());
+        int total = 0;
+        for (String v : first.vertices()) {
+            assertEquals("same seed should give same edges", first.targets(v), second.targets(v));
+            for (int weight : first.targets(v).values()) {
+                total += weight;
+            }
+        }
+        assertEquals("every edge increment should be counted", 1000, total);
+    }
+
+    @Test
+    public void testImplementationsAgree() {
+        List<GraphWorkload.Operation> operations = GraphWorkload.operations(300, 3000, 36);
+        Map<String, Double> throughput = GraphDifferential.run(GraphDifferential.implementations(), operations);
+        assertEquals("every implementation should report throughput",
+                    GraphDifferential.implementations().keySet(), throughput.keySet());
+        for (double opsPerSecond : throughput.values()) {
+            assertTrue("throughput should be positive", opsPerSecond > 0);
+        }
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testDisagreementDetected() {
+        Map<String, Supplier<Graph<String>>> implementations = new LinkedHashMap<>();
+        implementations.put("reference", ConcreteEdgesGraph::new);
+        implementations.put("broken", () -> new ConcreteEdgesGraph() {
+            @Override public boolean remove(String vertex) {
+                return false;
+            }
+        });
+        GraphDifferential.run(implementations, GraphWorkload.operations(50, 2000, 1));
+    }
+}
@@ -0,0 +1,122 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * Seeded generators of power-law graphs and of Graph operation sequences,
+ * for scaling and differential tests.
+ */
+public class GraphWorkload {
+
+    /** Kinds of Graph operation. */
+    public enum Kind { ADD, SET, REMOVE, VERTICES, SOURCES, TARGETS }
+
+    /**
+     * Immutable Graph operation with its arguments.
+     */
+    public static final class Operation {
+        private final Kind kind;
+        private final String first;
+        private final String second;
+        private final int weight;
+
+        // Abstraction function:
+        //   Represents calling kind on a graph with arguments first, second
+        //   and weight, those that the kind takes
+        // Representation invariant:
+        //   - kind is not null; weight >= 0
+        // Safety from rep exposure:
+        //   - all fields are private, final and immutable
+
+        public Operation(Kind kind, String first, String second, int weight) {
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+            this.weight = weight;
+        }
+
+        /**
+         * Perform this operation.
+         *
+         * @param graph graph to operate on
+         * @return the operation's result, a copy if it is a collection
+         */
+        public Object apply(Graph<String> graph) {
+            switch (kind) {
+            case ADD: return graph.add(first);
+            case SET: return graph.set(first, second, weight);
+            case REMOVE: return graph.remove(first);
+            case VERTICES: return new HashSet<>(graph.vertices());
+            case SOURCES: return new HashMap<>(graph.sources(first));
+            case TARGETS: return new HashMap<>(graph.targets(first));
+            default: throw new AssertionError(kind);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return kind + "(" + first + ", " + second + ", " + weight + ")";
+        }
+    }
+
+    private GraphWorkload() {
+        throw new AssertionError("GraphWorkload is not instantiable");
+    }
+
+    /**
+     * Generate a graph whose vertex degrees follow a power law.
+     *
+     * @param empty an empty graph to fill
+     * @param vertices positive number of distinct vertex labels to draw from
+     * @param edges number of edge increments; repeated pairs add weight
+     * @param exponent skew of the degree distribution
+     * @param seed random seed
+     * @return empty, filled
+     */
+    public static Graph<String> powerLaw(Graph<String> empty, int vertices, int edges,
+            double exponent, long seed) {
+        Zipf sources = new Zipf(vertices, exponent, seed);
+        Zipf targets = new Zipf(vertices, exponent, seed + 1);
+        for (int i = 0; i < edges; i++) {
+            String source = Zipf.word(sources.next());
+            String target = Zipf.word(targets.next());
+            int weight = empty.set(source, target, 0);
+            empty.set(source, target, weight + 1);
+        }
+        return empty;
+    }
+
+    /**
+     * Generate a mixed sequence of mutations and queries over power-law
+     * distributed labels.
+     *
+     * @param vertices positive number of distinct labels to draw from
+     * @param length number of operations
+     * @param seed random seed
+     * @return the operations
+     */
+    public static List<Operation> operations(int vertices, int length, long seed) {
+        Zipf labels = new Zipf(vertices, 1.0, seed);
+        Random random = new Random(seed + 1);
+        List<Operation> operations = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            String first = Zipf.word(labels.next());
+            int roll = random.nextInt(100);
+            if (roll < 10) {
+                operations.add(new Operation(Kind.ADD, first, null, 0));
+            } else if (roll < 60) {
+                int weight = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(5);
+                operations.add(new Operation(Kind.SET, first, Zipf.word(labels.next()), weight));
+            } else if (roll < 63) {
+                operations.add(new Operation(Kind.REMOVE, first, null, 0));
+            } else if (roll < 65) {
+                operations.add(new Operation(Kind.VERTICES, null, null, 0));
+            } else if (roll < 82) {
+                operations.add(new Operation(Kind.SOURCES, first, null, 0));
+            } else {
+                operations.add(new Operation(Kind.TARGETS, first, null, 0));
+            }
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,51 @@
+package graph;
+
+import static org.junit.Assert.*;
+import java.util.Set;
+import org.junit.Test;
+
+public class HashGraphTest extends GraphInstanceTest {
+
+    @Override public Graph<String> emptyInstance() {
+        return new HashGraph();
+    }
+
+    // Testing strategy for HashGraph
+    //   weight(): edge present, edge absent, source absent, after remove()
+    //   edgeCount(): empty, after set(), after removing a vertex with edges
+    //                in both directions
+    //   vertices(): a view that follows later changes
+
+    @Test
+    public void testWeight() {
+        HashGraph graph = new HashGraph();
+        graph.set("a", "b", 3);
+        assertEquals("present edge", 3, graph.weight("a", "b"));
+        assertEquals("reverse edge absent", 0, graph.weight("b", "a"));
+        assertEquals("source absent", 0, graph.weight("x", "b"));
+        graph.remove("b");
+        assertEquals("removed target", 0, graph.weight("a", "b"));
+    }
+
+    @Test
+    public void testEdgeCount() {
+        HashGraph graph = new HashGraph();
+        assertEquals("empty", 0, graph.edgeCount());
+        graph.set("a", "b", 1);
+        graph.set("b", "a", 2);
+        graph.set("b", "c", 2);
+        assertEquals("three edges", 3, graph.edgeCount());
+        graph.remove("b");
+        assertEquals("edges of b removed both ways", 0, graph.edgeCount());
+        assertTrue("b gone from sources of a", graph.sources("a").isEmpty());
+        assertTrue("b gone from sources of c", graph.sources("c").isEmpty());
+    }
+
+    @Test
+    public void testVerticesView() {
+        HashGraph graph = new HashGraph();
+        Set<String> vertices = graph.vertices();
+        graph.add("a");
+        assertTrue("view follows add", vertices.contains("a"));
+    }
+}
@@ -0,0 +1,249 @@
+package graph;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Supplier;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class HeapFootprintTest {
+
+    // Testing strategy
+    //   primitives: empty and growing HashMap, HashSet, ArrayList; cached and
+    //               boxed Integer; ASCII and non-Latin-1 strings
+    //   graphs: ConcreteEdgesGraph, ConcreteVerticesGraph estimates grow by
+    //           at least a label per vertex, an object per edge, and an
+    //           Integer per boxed weight, and are within a factor of 2 of
+    //           the live heap; other graphs estimated through of()
+    //   live heap, only with -Dheap.measure=true since it depends on the
+    //           collector and JIT: ConcreteEdgesGraph, ConcreteVerticesGraph,
+    //           CompressedGraph estimates within 20% of heap measured after
+    //           garbage collection
+    //   OverlayGraph and JournaledGraph count their own layers
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testPrimitives() {
+        assertEquals("empty HashMap", 48, HeapFootprint.hashMap(0));
+        assertEquals("HashMap at threshold", 48 + 80 + 12 * 32, HeapFootprint.hashMap(12));
+        assertEquals("HashMap after resize", 48 + 144 + 13 * 32, HeapFootprint.hashMap(13));
+        assertEquals("HashSet wraps HashMap", 16 + 48, HeapFootprint.hashSet(0));
+        assertEquals("ArrayList first growth", 24 + 56, HeapFootprint.arrayList(10));
+        assertEquals("ArrayList second growth", 24 + 80, HeapFootprint.arrayList(11));
+        assertEquals("cached Integer", 0, HeapFootprint.integer(127));
+        assertEquals("boxed Integer", 16, HeapFootprint.integer(128));
+        assertTrue("non-Latin-1 strings take two bytes per char",
+                  HeapFootprint.string("\u4e2d\u4e2d\u4e2d\u4e2d\u4e2d\u4e2d\u4e2d\u4e2d\u4e2d")
+                  >= HeapFootprint.string("abcdefghi") + 8);
+    }
+
+    /** Whether to run the tests that measure the live heap. */
+    private static final boolean MEASURE_HEAP = Boolean.getBoolean("heap.measure");
+
+    private static long usedHeap() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            Runtime runtime = Runtime.getRuntime();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Fill a graph with a power-law edge set over its own label strings.
+     */
+    private static Graph<String> fill(Graph<String> graph, long seed) {
+        String[] labels = new String[300];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = Zipf.word(i);
+            graph.add(labels[i]);
+        }
+        Zipf sources = new Zipf(labels.length, 1.0, seed);
+        Zipf targets = new Zipf(labels.length, 1.0, seed + 1);
+        for (int i = 0; i < 2000; i++) {
+            String source = labels[sources.next()];
+            String target = labels[targets.next()];
+            int weight = graph.set(source, target, 0);
+            graph.set(source, target, weight + (i % 50 == 0 ? 200 : 1));
+        }
+        return graph;
+    }
+
+    /**
+     * @return retained heap per graph, measured over count new graphs
+     *         appended to copies after one more to load classes
+     */
+    private static long measureHeap(Supplier<Graph<String>> build, List<Graph<String>> copies, int count)
+            throws InterruptedException {
+        copies.add(build.get());
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            copies.add(build.get());
+        }
+        return (usedHeap() - before) / count;
+    }
+
+    private static void assertEstimateMatchesHeap(String name, Supplier<Graph<String>> build)
+            throws InterruptedException {
+        Assume.assumeTrue("live heap measured only with -Dheap.measure=true", MEASURE_HEAP);
+        List<Graph<String>> copies = new ArrayList<>();
+        long measured = measureHeap(build, copies, 20);
+        long estimated = HeapFootprint.of(copies.get(0));
+        assertTrue(name + " estimate " + estimated + " should be within 20% of measured " + measured,
+                  Math.abs(estimated - measured) <= measured / 5);
+    }
+
+    /**
+     * Assert an estimate is within a factor of 2 of the live heap, loose
+     * enough to hold under any collector.
+     */
+    private static void assertEstimateNearHeap(String name, Supplier<Graph<String>> build)
+            throws InterruptedException {
+        List<Graph<String>> copies = new ArrayList<>();
+        long measured = measureHeap(build, copies, 40);
+        long estimated = HeapFootprint.of(copies.get(0));
+        assertTrue(name + " estimate " + estimated + " should be within a factor of 2 of measured " + measured,
+                  estimated <= 2 * measured && measured <= 2 * estimated);
+    }
+
+    @Test
+    public void testConcreteEdgesGraphNearHeap() throws InterruptedException {
+        assertEstimateNearHeap("ConcreteEdgesGraph", () -> fill(new ConcreteEdgesGraph(), 17));
+    }
+
+    @Test
+    public void testConcreteVerticesGraphNearHeap() throws InterruptedException {
+        assertEstimateNearHeap("ConcreteVerticesGraph", () -> fill(new ConcreteVerticesGraph(), 17));
+    }
+
+    @Test
+    public void testEstimateGrowsWithGraph() {
+        String longLabel = "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcd";
+        for (Graph<String> graph : Arrays.<Graph<String>>asList(
+                new ConcreteEdgesGraph(), new ConcreteVerticesGraph())) {
+            String name = graph.getClass().getSimpleName();
+            long empty = HeapFootprint.of(graph);
+            graph.add("a");
+            long shortVertex = HeapFootprint.of(graph);
+            assertTrue(name + " should count a vertex and its label",
+                      shortVertex >= empty + HeapFootprint.string("a"));
+            graph.add(longLabel);
+            long longVertex = HeapFootprint.of(graph);
+            assertTrue(name + " should count the length of a label",
+                      longVertex - shortVertex >= longLabel.length());
+
+            graph.set("a", longLabel, 1);
+            long cached = HeapFootprint.of(graph);
+            assertTrue(name + " should count an edge", cached > longVertex);
+            graph.set("a", longLabel, 1000);
+            long boxed = graph instanceof ConcreteVerticesGraph ? HeapFootprint.integer(1000) : 0;
+            assertEquals(name + " should count only a boxed weight", cached + boxed, HeapFootprint.of(graph));
+        }
+    }
+
+    @Test
+    public void testEstimateLinearInEdges() {
+        for (Graph<String> graph : Arrays.<Graph<String>>asList(
+                new ConcreteEdgesGraph(), new ConcreteVerticesGraph())) {
+            String name = graph.getClass().getSimpleName();
+            for (int i = 0; i < 100; i++) {
+                graph.add("v" + i);
+            }
+            long before = HeapFootprint.of(graph);
+            for (int i = 0; i < 100; i++) {
+                for (int j = 0; j < 20; j++) {
+                    graph.set("v" + i, "v" + ((i + j) % 100), 1);
+                }
+            }
+            long perEdge = (HeapFootprint.of(graph) - before) / 2000;
+            // at least one small object per edge, and at most a few
+            assertTrue(name + " per-edge cost " + perEdge + " should be an object or two",
+                      perEdge >= 24 && perEdge <= 96);
+        }
+    }
+
+    @Test
+    public void testConcreteEdgesGraphMatchesHeap() throws InterruptedException {
+        assertEstimateMatchesHeap("ConcreteEdgesGraph", () -> fill(new ConcreteEdgesGraph(), 39));
+    }
+
+    @Test
+    public void testConcreteVerticesGraphMatchesHeap() throws InterruptedException {
+        assertEstimateMatchesHeap("ConcreteVerticesGraph", () -> fill(new ConcreteVerticesGraph(), 39));
+    }
+
+    @Test
+    public void testCompressedGraphMatchesHeap() throws InterruptedException {
+        Graph<String> source = fill(new ConcreteEdgesGraph(), 39);
+        assertEstimateMatchesHeap("CompressedGraph", () -> {
+            // the compressed graph keeps the labels of the graph it copies
+            Graph<String> copy = new ConcreteEdgesGraph();
+            Map<String, String> fresh = new HashMap<>();
+            for (String v : source.vertices()) {
+                fresh.put(v, new String(v.toCharArray()));
+                copy.add(fresh.get(v));
+            }
+            for (String v : source.vertices()) {
+                for (Map.Entry<String, Integer> edge : source.targets(v).entrySet()) {
+                    copy.set(fresh.get(v), fresh.get(edge.getKey()), edge.getValue());
+                }
+            }
+            return new CompressedGraph(copy);
+        });
+    }
+
+    @Test
+    public void testCompressedSmallerThanConcrete() {
+        Graph<String> graph = fill(new ConcreteVerticesGraph(), 7);
+        long compressed = new CompressedGraph(graph).estimatedHeapBytes();
+        assertTrue("compressed should be smaller", compressed < HeapFootprint.of(graph));
+        assertTrue("compressed should be smaller", compressed < HeapFootprint.of(fill(new ConcreteEdgesGraph(), 7)));
+    }
+
+    @Test
+    public void testLayeredGraphs() throws Exception {
+        CompressedGraph base = new CompressedGraph(fill(new ConcreteEdgesGraph(), 3));
+        OverlayGraph overlay = new OverlayGraph(base);
+        long empty = overlay.estimatedHeapBytes();
+        assertEquals("overlay should not count its base",
+                    new OverlayGraph(new CompressedGraph(new ConcreteEdgesGraph())).estimatedHeapBytes(), empty);
+        overlay.set("new", "word", 5);
+        overlay.remove("a");
+        assertTrue("overlay changes should count", overlay.estimatedHeapBytes() > empty);
+
+        File dir = Files.createTempDirectory("footprint").toFile();
+        try (JournaledGraph journaled = new JournaledGraph(dir, new ConcreteVerticesGraph())) {
+            journaled.set("a", "b", 1);
+            assertTrue("journaled should count its delegate",
+                      journaled.estimatedHeapBytes() > HeapFootprint.of(new ConcreteVerticesGraph()));
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testUnmeasuredGraph() {
+        Graph<String> graph = fill(new ConcreteVerticesGraph(), 11);
+        Graph<String> unmeasured = new Graph<String>() {
+            @Override public boolean add(String vertex) { return graph.add(vertex); }
+            @Override public int set(String s, String t, int w) { return graph.set(s, t, w); }
+            @Override public boolean remove(String vertex) { return graph.remove(vertex); }
+            @Override public Set<String> vertices() { return graph.vertices(); }
+            @Override public Map<String, Integer> sources(String t) { return graph.sources(t); }
+            @Override public Map<String, Integer> targets(String s) { return graph.targets(s); }
+        };
+        assertEquals("unmeasured graph estimated as ConcreteVerticesGraph",
+                    HeapFootprint.of(graph), HeapFootprint.of(unmeasured));
+    }
+}
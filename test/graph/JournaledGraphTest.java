@@ -0,0 +1,146 @@
+package graph;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.*;
+import org.junit.Test;
+
+public class JournaledGraphTest extends GraphInstanceTest {
+
+    @Override public Graph<String> emptyInstance() {
+        try {
+            return new JournaledGraph(newDirectory(), new ConcreteVerticesGraph());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Testing strategy for JournaledGraph recovery
+    //   reopen after: close, commit without close, no commit, checkpoint,
+    //                 checkpoint followed by more mutations, torn last frame
+    //   mutations: add, set (new, update, zero), remove, no-op calls
+    //   batch size: 1, larger than the number of mutations
+
+    private static File newDirectory() throws IOException {
+        File directory = Files.createTempDirectory("journal").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static void mutate(Graph<String> graph) {
+        graph.add("lonely");
+        graph.set("a", "b", 1);
+        graph.set("a", "b", 2);
+        graph.set("b", "c", 3);
+        graph.set("c", "a", 4);
+        graph.set("c", "a", 0);
+        graph.set("x", "y", 0);
+        graph.set("d", "a", 5);
+        graph.remove("d");
+        graph.remove("nothing");
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals("vertices differ", expected.vertices(), actual.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals("targets differ for " + v, expected.targets(v), actual.targets(v));
+        }
+    }
+
+    @Test
+    public void testRecoverAfterClose() throws IOException {
+        File directory = newDirectory();
+        Graph<String> expected = new ConcreteEdgesGraph();
+        mutate(expected);
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            mutate(graph);
+        }
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            assertSameGraph(expected, graph);
+        }
+    }
+
+    @Test
+    public void testUncommittedBatchIsLost() throws IOException {
+        File directory = newDirectory();
+        JournaledGraph crashed = new JournaledGraph(directory, new ConcreteVerticesGraph(), 100, 1000);
+        crashed.set("a", "b", 1);
+        crashed.commit();
+        crashed.set("b", "c", 1);
+        // no commit or close: simulate a crash
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            assertEquals("only committed mutations should survive",
+                        new HashSet<>(Arrays.asList("a", "b")), graph.vertices());
+        }
+    }
+
+    @Test
+    public void testGroupCommitAtBatchSize() throws IOException {
+        File directory = newDirectory();
+        JournaledGraph crashed = new JournaledGraph(directory, new ConcreteVerticesGraph(), 1, 1000);
+        crashed.set("a", "b", 1);
+        crashed.add("c");
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            assertEquals("batches of one should be committed immediately",
+                        new HashSet<>(Arrays.asList("a", "b", "c")), graph.vertices());
+        }
+    }
+
+    @Test
+    public void testRecoverFromCheckpointAndLogTail() throws IOException {
+        File directory = newDirectory();
+        Graph<String> expected = new ConcreteEdgesGraph();
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph(), 2, 3)) {
+            for (Graph<String> g : Arrays.asList(expected, graph)) {
+                mutate(g);
+                g.set("tail", "a", 7);
+                g.remove("lonely");
+            }
+        }
+        assertTrue("checkpoint should exist", new File(directory, "snapshot").exists());
+        assertEquals("only one log generation should remain", 1,
+                    directory.listFiles((dir, name) -> name.startsWith("journal-")).length);
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            assertSameGraph(expected, graph);
+        }
+    }
+
+    @Test
+    public void testTornFrameIsDiscarded() throws IOException {
+        File directory = newDirectory();
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            graph.set("a", "b", 1);
+        }
+        File journal = new File(directory, "journal-0");
+        long committed = journal.length();
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.seek(committed);
+            file.write(new byte[] { 0, 0, 0, 20, 1, 2, 3, 4, 5 });
+        }
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            assertEquals("edge weight incorrect", 1, (int) graph.targets("a").get("b"));
+            assertEquals("torn frame should be truncated", committed, journal.length());
+            graph.set("b", "c", 2);
+        }
+        try (JournaledGraph graph = new JournaledGraph(directory, new ConcreteVerticesGraph())) {
+            assertEquals("mutation after truncation lost", 2, (int) graph.targets("b").get("c"));
+        }
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testClosedGraphRejectsMutation() throws IOException {
+        JournaledGraph graph = new JournaledGraph(newDirectory(), new ConcreteVerticesGraph());
+        graph.close();
+        graph.add("a");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNonEmptyDelegateRejected() throws IOException {
+        Graph<String> delegate = new ConcreteVerticesGraph();
+        delegate.add("a");
+        new JournaledGraph(newDirectory(), delegate);
+    }
+}
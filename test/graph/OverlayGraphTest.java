@@ -0,0 +1,112 @@
+package graph;
+
+import static org.junit.Assert.*;
+import java.util.*;
+import org.junit.Test;
+
+public class OverlayGraphTest extends GraphInstanceTest {
+
+    @Override public Graph<String> emptyInstance() {
+        return new OverlayGraph(new CompressedGraph(new ConcreteEdgesGraph()));
+    }
+
+    // Testing strategy for OverlayGraph over a nonempty base
+    //   set(): new edge, add to base edge, lower below base edge, zero base edge
+    //   increment(): base edge, new edge, new vertices, zero amount; the
+    //                delta holds only the private counts
+    //   remove(): base vertex, delta vertex, base vertex then add again
+    //   observers: vertices(), sources(), targets() merge base and delta
+    //   base: never modified; shared by two overlays independently
+
+    private static CompressedGraph base() {
+        Graph<String> base = new ConcreteEdgesGraph();
+        base.set("a", "b", 5);
+        base.set("b", "c", 2);
+        base.set("c", "a", 1);
+        return new CompressedGraph(base);
+    }
+
+    private static Map<String, Integer> map(Object... entries) {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            map.put((String) entries[i], (Integer) entries[i + 1]);
+        }
+        return map;
+    }
+
+    @Test
+    public void testSummedWeights() {
+        CompressedGraph base = base();
+        OverlayGraph overlay = new OverlayGraph(base);
+        assertEquals("base weight visible", 5, overlay.set("a", "b", 7));
+        overlay.set("a", "d", 1);
+        assertEquals("targets should merge", map("b", 7, "d", 1), overlay.targets("a"));
+        assertEquals("sources should merge", map("a", 7), overlay.sources("b"));
+        assertEquals("vertices should merge",
+                    new HashSet<>(Arrays.asList("a", "b", "c", "d")), overlay.vertices());
+        assertEquals("base should not change", 5, (int) base.targets("a").get("b"));
+        assertFalse("base should not gain vertices", base.vertices().contains("d"));
+    }
+
+    @Test
+    public void testLowerAndZeroBaseEdge() {
+        CompressedGraph base = base();
+        OverlayGraph overlay = new OverlayGraph(base);
+        assertEquals("old weight", 5, overlay.set("a", "b", 3));
+        assertEquals("lowered weight", map("b", 3), overlay.targets("a"));
+        assertEquals("old weight", 2, overlay.set("b", "c", 0));
+        assertTrue("zeroed edge hidden", overlay.targets("b").isEmpty());
+        assertTrue("zeroed edge hidden from sources", overlay.sources("c").isEmpty());
+        assertEquals("raising after hiding", 0, overlay.set("b", "c", 4));
+        assertEquals("raised weight", map("c", 4), overlay.targets("b"));
+        assertEquals("base should not change", 2, (int) base.targets("b").get("c"));
+    }
+
+    @Test
+    public void testRemoveBaseVertexIsTombstoned() {
+        CompressedGraph base = base();
+        OverlayGraph overlay = new OverlayGraph(base);
+        assertTrue("remove base vertex", overlay.remove("b"));
+        assertFalse("removed vertex hidden", overlay.vertices().contains("b"));
+        assertEquals("vertex count", 2, overlay.vertices().size());
+        assertTrue("edges to removed vertex hidden", overlay.targets("a").isEmpty());
+        assertFalse("second remove", overlay.remove("b"));
+        assertTrue("add removed vertex again", overlay.add("b"));
+        assertTrue("re-added vertex has no base edges", overlay.sources("b").isEmpty());
+        assertTrue("re-added vertex has no base targets", overlay.targets("b").isEmpty());
+        assertTrue("base keeps vertex", base.vertices().contains("b"));
+    }
+
+    @Test
+    public void testOverlaysAreIndependent() {
+        CompressedGraph base = base();
+        OverlayGraph first = new OverlayGraph(base);
+        OverlayGraph second = new OverlayGraph(base);
+        first.set("a", "b", 6);
+        second.remove("a");
+        assertEquals("first overlay weight", 6, (int) first.targets("a").get("b"));
+        assertFalse("second overlay removal", second.vertices().contains("a"));
+        assertTrue("first overlay still has vertex", first.vertices().contains("a"));
+    }
+
+    @Test
+    public void testIncrementKeepsDeltaPrivate() {
+        CompressedGraph base = base();
+        OverlayGraph overlay = new OverlayGraph(base);
+        List<String> words = Arrays.asList("a", "b", "c", "a", "b", "d", "a", "b");
+        Map<String, Integer> privateCounts = new HashMap<>();
+        for (int i = 0; i + 1 < words.size(); i++) {
+            overlay.increment(words.get(i), words.get(i + 1), 1);
+            privateCounts.merge(words.get(i) + " " + words.get(i + 1), 1, Integer::sum);
+        }
+        assertEquals("delta should hold one edge per private bigram",
+                    privateCounts.size(), overlay.privateEdges());
+        assertEquals("shared plus private weights", map("b", 5 + 3), overlay.targets("a"));
+        assertEquals("new vertex and edge", map("a", 1), overlay.targets("d"));
+        assertEquals("previous weight", 8, overlay.increment("a", "b", 0));
+        assertEquals("zero amount adds no edge", privateCounts.size(), overlay.privateEdges());
+        assertEquals("zero amount adds endpoints", 0, overlay.increment("e", "f", 0));
+        assertTrue("endpoints added", overlay.vertices().containsAll(Arrays.asList("e", "f")));
+        assertEquals("base should not change", 5, (int) base.targets("a").get("b"));
+    }
+}
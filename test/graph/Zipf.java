@@ -0,0 +1,75 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Seeded sampler of ranks 0 .. n-1 with Zipf-distributed frequencies, where
+ * rank r is drawn with probability proportional to 1 / (r + 1)^exponent.
+ */
+public class Zipf {
+
+    private final double[] cumulative;
+    private final Random random;
+
+    // Abstraction function:
+    //   Represents a stream of ranks where rank r is drawn with probability
+    //   cumulative[r] - cumulative[r-1] (cumulative[-1] taken as 0)
+
+    // Representation invariant:
+    //   - cumulative is nonempty, strictly increasing and ends at 1
+
+    // Safety from rep exposure:
+    //   - all fields are private and final
+
+    /**
+     * Make a sampler.
+     *
+     * @param n positive number of ranks
+     * @param exponent nonnegative skew; 0 is uniform, about 1 is natural text
+     * @param seed random seed
+     */
+    public Zipf(int n, double exponent, long seed) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Need at least one rank and a non-negative exponent");
+        }
+        cumulative = new double[n];
+        double total = 0;
+        for (int r = 0; r < n; r++) {
+            total += 1 / Math.pow(r + 1, exponent);
+            cumulative[r] = total;
+        }
+        for (int r = 0; r < n; r++) {
+            cumulative[r] /= total;
+        }
+        cumulative[n - 1] = 1;
+        random = new Random(seed);
+    }
+
+    /**
+     * @return the next rank, in [0, n)
+     */
+    public int next() {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * Name a rank with a short lower-case word, distinct for each rank.
+     *
+     * @param rank a nonnegative rank
+     * @return letters a-z spelling rank in bijective base 26
+     */
+    public static String word(int rank) {
+        StringBuilder word = new StringBuilder();
+        for (int r = rank + 1; r > 0; r = (r - 1) / 26) {
+            word.append((char) ('a' + (r - 1) % 26));
+        }
+        return word.reverse().toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Zipf over %d ranks", cumulative.length);
+    }
+}
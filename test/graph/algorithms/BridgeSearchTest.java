@@ -0,0 +1,244 @@
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class BridgeSearchTest {
+
+    // Testing strategy for BridgeSearch.bridge()
+    //   bridge words: 1, 2, more than maxWords, none (no path, direct edge only)
+    //   choice: fewer words beat more weight, more weight among equal words
+    //   labels: absent, source == target
+    //   budget: exhausted on a hub-heavy graph, enough
+    //   repeated searches agree with fresh searches and with brute force on
+    //   random graphs
+    //   graph: changes seen by the next search; a graph slow to read stops
+    //          near the budget
+    //   many threads: results agree
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static BridgeSearch<String> search(Graph<String> graph) {
+        return new BridgeSearch<>(graph);
+    }
+
+    @Test
+    public void testSingleWord() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("s", "b", 1);
+        graph.set("b", "t", 1);
+        assertEquals("one word", Arrays.asList("b"), search(graph).bridge("s", "t", 3, SECOND));
+    }
+
+    @Test
+    public void testFewerWordsPreferred() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("s", "a", 9);
+        graph.set("a", "b", 9);
+        graph.set("b", "t", 9);
+        assertEquals("two words", Arrays.asList("a", "b"), search(graph).bridge("s", "t", 2, SECOND));
+        graph.set("s", "x", 1);
+        graph.set("x", "t", 1);
+        assertEquals("one light word beats two heavy ones",
+                    Arrays.asList("x"), search(graph).bridge("s", "t", 2, SECOND));
+    }
+
+    @Test
+    public void testHeaviestAmongEqualLength() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("s", "a", 1);
+        graph.set("a", "c", 1);
+        graph.set("c", "t", 1);
+        graph.set("s", "b", 5);
+        graph.set("b", "d", 5);
+        graph.set("d", "t", 5);
+        graph.set("a", "d", 4);
+        assertEquals("heaviest", Arrays.asList("b", "d"), search(graph).bridge("s", "t", 3, SECOND));
+    }
+
+    @Test
+    public void testNoBridge() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("s", "a", 1);
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "t", 1);
+        graph.set("s", "t", 1);
+        graph.add("alone");
+        BridgeSearch<String> search = search(graph);
+        assertEquals("too many words", Collections.emptyList(), search.bridge("s", "t", 2, SECOND));
+        assertEquals("within limit", Arrays.asList("a", "b", "c"), search.bridge("s", "t", 3, SECOND));
+        assertEquals("no path", Collections.emptyList(), search.bridge("t", "s", 5, SECOND));
+        assertEquals("unreachable", Collections.emptyList(), search.bridge("s", "alone", 5, SECOND));
+        assertEquals("absent", Collections.emptyList(), search.bridge("s", "zebra", 5, SECOND));
+        assertEquals("same word", Collections.emptyList(), search.bridge("s", "s", 5, SECOND));
+    }
+
+    @Test
+    public void testBudgetOnHubs() {
+        // many paths fan out from s and into t, but the two sides never meet
+        Graph<String> graph = new ConcreteEdgesGraph();
+        for (int i = 0; i < 3000; i++) {
+            graph.set("s", "out" + i, 1);
+            graph.set("out" + i, "hub", 1);
+            graph.set("in" + i, "t", 1);
+            graph.set("bub", "in" + i, 1);
+        }
+        BridgeSearch<String> search = search(graph);
+        assertEquals("no time", Collections.emptyList(), search.bridge("s", "t", 6, 0));
+        long start = System.nanoTime();
+        assertEquals("no path", Collections.emptyList(),
+                    search.bridge("s", "t", 6, TimeUnit.MILLISECONDS.toNanos(5)));
+        long elapsed = System.nanoTime() - start;
+        assertTrue("search should stop near its budget: " + elapsed,
+                  elapsed < TimeUnit.MILLISECONDS.toNanos(100));
+        graph.set("hub", "bub", 1);
+        assertEquals("path through the hubs", Arrays.asList("out0", "hub", "bub", "in0").size(),
+                    search.bridge("s", "t", 6, SECOND).size());
+    }
+
+    @Test
+    public void testSlowGraph() {
+        // every read of a neighbor map takes a millisecond
+        Graph<String> fast = new ConcreteEdgesGraph();
+        for (int i = 0; i < 1000; i++) {
+            fast.set("s", "v" + i, 1);
+            fast.set("v" + i, "w" + i, 1);
+        }
+        fast.set("x", "t", 1);
+        Graph<String> slow = new Graph<String>() {
+            private Map<String, Integer> slowly(Map<String, Integer> neighbors) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return neighbors;
+            }
+            @Override public boolean add(String vertex) { return fast.add(vertex); }
+            @Override public int set(String s, String t, int w) { return fast.set(s, t, w); }
+            @Override public boolean remove(String vertex) { return fast.remove(vertex); }
+            @Override public Set<String> vertices() { return fast.vertices(); }
+            @Override public Map<String, Integer> sources(String t) { return slowly(fast.sources(t)); }
+            @Override public Map<String, Integer> targets(String s) { return slowly(fast.targets(s)); }
+        };
+        long start = System.nanoTime();
+        assertEquals("no path", Collections.emptyList(),
+                    new BridgeSearch<>(slow).bridge("s", "t", 4, TimeUnit.MILLISECONDS.toNanos(20)));
+        long elapsed = System.nanoTime() - start;
+        assertTrue("search should stop near its budget: " + elapsed,
+                  elapsed < TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    /**
+     * Best bridge by trying every path, or empty.
+     */
+    private static List<String> bruteForce(Graph<String> graph, String s, String t, int maxWords) {
+        List<List<String>> paths = new ArrayList<>();
+        extend(graph, new ArrayList<>(Arrays.asList(s)), t, maxWords + 1, paths);
+        List<String> best = null;
+        long bestScore = -1;
+        for (List<String> path : paths) {
+            long score = 0;
+            for (int i = 0; i + 1 < path.size(); i++) {
+                score += graph.targets(path.get(i)).get(path.get(i + 1));
+            }
+            if (best == null || path.size() < best.size()
+                    || (path.size() == best.size() && score > bestScore)) {
+                best = path;
+                bestScore = score;
+            }
+        }
+        return best == null ? Collections.emptyList() : best.subList(1, best.size() - 1);
+    }
+
+    private static void extend(Graph<String> graph, List<String> path, String t, int edges,
+            List<List<String>> paths) {
+        String last = path.get(path.size() - 1);
+        for (String next : graph.targets(last).keySet()) {
+            if (next.equals(t) && path.size() >= 2) {
+                List<String> found = new ArrayList<>(path);
+                found.add(t);
+                paths.add(found);
+            } else if (!path.contains(next) && !next.equals(t) && path.size() < edges) {
+                path.add(next);
+                extend(graph, path, t, edges, paths);
+                path.remove(path.size() - 1);
+            }
+        }
+    }
+
+    private static long score(Graph<String> graph, String s, List<String> bridge, String t) {
+        List<String> path = new ArrayList<>();
+        path.add(s);
+        path.addAll(bridge);
+        path.add(t);
+        long score = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            score += graph.targets(path.get(i)).get(path.get(i + 1));
+        }
+        return score;
+    }
+
+    @Test
+    public void testAgreesWithBruteForce() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 20; trial++) {
+            Graph<String> graph = new ConcreteEdgesGraph();
+            for (int i = 0; i < 40; i++) {
+                graph.set("v" + random.nextInt(12), "v" + random.nextInt(12), 1 + random.nextInt(9));
+            }
+            BridgeSearch<String> search = search(graph);
+            for (String s : graph.vertices()) {
+                for (String t : graph.vertices()) {
+                    if (s.equals(t)) {
+                        continue;
+                    }
+                    List<String> expected = bruteForce(graph, s, t, 3);
+                    List<String> actual = search.bridge(s, t, 3, SECOND);
+                    assertEquals("words " + s + " to " + t, expected.size(), actual.size());
+                    if (!expected.isEmpty()) {
+                        assertEquals("score " + s + " to " + t,
+                                    score(graph, s, expected, t), score(graph, s, actual, t));
+                    }
+                    assertEquals("repeated search should agree with a fresh one",
+                                actual, search(graph).bridge(s, t, 3, SECOND));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testManyThreads() throws Exception {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("s", "a", 1);
+        graph.set("a", "b", 1);
+        graph.set("b", "t", 1);
+        BridgeSearch<String> search = search(graph);
+        int threads = 4 * Runtime.getRuntime().availableProcessors() + 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < threads * 50; i++) {
+                results.add(pool.submit(() -> search.bridge("s", "t", 3, SECOND)));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals("bridge", Arrays.asList("a", "b"), result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
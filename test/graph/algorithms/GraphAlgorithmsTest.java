@@ -0,0 +1,132 @@
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+import graph.ConcreteVerticesGraph;
+import graph.Graph;
+import java.util.*;
+import org.junit.Test;
+
+public class GraphAlgorithmsTest {
+
+    // Testing strategy
+    //   reachable(), bfs(), parallelBfs():
+    //     source absent, isolated, with cycles; frontier small and large
+    //   shortestPath(), widestPath():
+    //     source or target absent, source == target, target unreachable,
+    //     cheapest path has more edges than the direct edge, ties
+    //   IntMinHeap: offer, decrease-key, ignored increase, poll order
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static Graph<String> sample() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("a", "c", 5);
+        graph.set("c", "d", 2);
+        graph.set("d", "a", 3);
+        graph.set("a", "x", 10);
+        graph.set("x", "d", 10);
+        graph.add("lonely");
+        return graph;
+    }
+
+    @Test
+    public void testReachable() {
+        Graph<String> graph = sample();
+        assertEquals("reachable set incorrect",
+                    new HashSet<>(Arrays.asList("a", "b", "c", "d", "x")),
+                    GraphAlgorithms.reachable(graph, "b"));
+        assertEquals("isolated vertex reaches only itself",
+                    Collections.singleton("lonely"), GraphAlgorithms.reachable(graph, "lonely"));
+        assertTrue("absent vertex reaches nothing",
+                  GraphAlgorithms.reachable(graph, "zzz").isEmpty());
+    }
+
+    @Test
+    public void testBfsDistances() {
+        IndexedGraph<String> graph = new IndexedGraph<>(sample());
+        int[] distances = GraphAlgorithms.bfs(graph, graph.id("a"));
+        assertEquals("distance to self", 0, distances[graph.id("a")]);
+        assertEquals("distance to c", 1, distances[graph.id("c")]);
+        assertEquals("distance to d", 2, distances[graph.id("d")]);
+        assertEquals("unreachable vertex", GraphAlgorithms.UNREACHABLE, distances[graph.id("lonely")]);
+        assertArrayEquals("parallel bfs should agree",
+                         distances, GraphAlgorithms.parallelBfs(graph, graph.id("a")));
+    }
+
+    @Test
+    public void testParallelBfsLargeFrontier() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        Random random = new Random(29);
+        for (int i = 0; i < 2000; i++) {
+            graph.set("hub", "v" + i, 1);
+        }
+        for (int i = 0; i < 4000; i++) {
+            graph.set("v" + random.nextInt(2000), "w" + random.nextInt(1000), 1);
+        }
+        IndexedGraph<String> indexed = new IndexedGraph<>(graph);
+        int source = indexed.id("hub");
+        assertArrayEquals("parallel bfs should agree with bfs",
+                         GraphAlgorithms.bfs(indexed, source), GraphAlgorithms.parallelBfs(indexed, source));
+    }
+
+    @Test
+    public void testShortestPath() {
+        Graph<String> graph = sample();
+        assertEquals("shortest path incorrect",
+                    new Path<>(Arrays.asList("a", "b", "c", "d"), 4),
+                    GraphAlgorithms.shortestPath(graph, "a", "d"));
+        assertEquals("path to self",
+                    new Path<>(Arrays.asList("a"), 0), GraphAlgorithms.shortestPath(graph, "a", "a"));
+        assertNull("unreachable target", GraphAlgorithms.shortestPath(graph, "a", "lonely"));
+        assertNull("absent source", GraphAlgorithms.shortestPath(graph, "zzz", "a"));
+    }
+
+    @Test
+    public void testWidestPath() {
+        Graph<String> graph = sample();
+        assertEquals("widest path incorrect",
+                    new Path<>(Arrays.asList("a", "x", "d"), 10),
+                    GraphAlgorithms.widestPath(graph, "a", "d"));
+        assertEquals("widest path to c",
+                    new Path<>(Arrays.asList("a", "c"), 5),
+                    GraphAlgorithms.widestPath(graph, "a", "c"));
+        assertEquals("path to self",
+                    Long.MAX_VALUE, GraphAlgorithms.widestPath(graph, "b", "b").getWeight());
+        assertNull("unreachable target", GraphAlgorithms.widestPath(graph, "lonely", "a"));
+    }
+
+    @Test
+    public void testIndexedGraph() {
+        Graph<String> original = sample();
+        IndexedGraph<String> graph = new IndexedGraph<>(original);
+        assertEquals("vertex count", original.vertices().size(), graph.size());
+        assertEquals("edge count", 7, graph.edgeCount());
+        assertEquals("absent id", -1, graph.id("zzz"));
+        int a = graph.id("a");
+        assertEquals("label round trip", "a", graph.label(a));
+        assertEquals("out degree", 3, graph.outDegree(a));
+        assertEquals("in degree", 1, graph.inDegree(a));
+    }
+
+    @Test
+    public void testIntMinHeap() {
+        IntMinHeap heap = new IntMinHeap(6);
+        heap.offer(0, 50);
+        heap.offer(1, 10);
+        heap.offer(2, 30);
+        heap.offer(3, 40);
+        assertTrue("decrease key should succeed", heap.offer(0, 5));
+        assertFalse("increase key should be ignored", heap.offer(1, 20));
+        List<Integer> order = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            order.add(heap.poll());
+        }
+        assertEquals("poll order incorrect", Arrays.asList(0, 1, 2, 3), order);
+        assertEquals("key of polled id", 10, heap.key(1));
+    }
+}
@@ -0,0 +1,116 @@
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+import graph.ConcreteVerticesGraph;
+import graph.Graph;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class PageRankTest {
+
+    // Testing strategy for PageRank
+    //   graph: empty, cycle, star, dangling vertices, weighted edges,
+    //          large enough to split sweeps across tasks
+    //   rank(): cold start; rank(previous): warm start after an update
+    //   pool parallelism: 1, many
+    //   parameters: invalid damping, tolerance, iterations
+
+    private static final double EPSILON = 1e-6;
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static double total(Ranking<String> ranking, Collection<String> labels) {
+        double sum = 0;
+        for (String label : labels) {
+            sum += ranking.score(label);
+        }
+        return sum;
+    }
+
+    @Test
+    public void testEmptyGraph() {
+        Ranking<String> ranking = new PageRank<>(new ConcreteVerticesGraph()).rank();
+        assertEquals("empty ranking", 0, ranking.size());
+        assertTrue("empty ranking converges", ranking.isConverged());
+    }
+
+    @Test
+    public void testCycleIsUniform() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "a", 1);
+        Ranking<String> ranking = new PageRank<>(graph).rank();
+        for (String v : graph.vertices()) {
+            assertEquals("cycle scores should be equal", 1.0 / 3, ranking.score(v), EPSILON);
+        }
+        assertEquals("absent vertex has no score", 0, ranking.score("zzz"), 0);
+    }
+
+    @Test
+    public void testWeightedStarWithDanglingVertices() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.set("a", "hub", 1);
+        graph.set("b", "hub", 1);
+        graph.set("hub", "x", 3);
+        graph.set("hub", "y", 1);
+        Ranking<String> ranking = new PageRank<>(graph).rank();
+        assertTrue("ranking should converge", ranking.isConverged());
+        assertEquals("scores should sum to one", 1, total(ranking, graph.vertices()), EPSILON);
+        assertTrue("heavier edge should give a higher score",
+                  ranking.score("x") > ranking.score("y"));
+        assertTrue("hub should outrank its sources", ranking.score("hub") > ranking.score("a"));
+        assertEquals("top vertices incorrect", Arrays.asList("x", "hub"), ranking.top(2));
+    }
+
+    @Test
+    public void testParallelMatchesSequentialAndWarmStart() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        Random random = new Random(30);
+        for (int i = 0; i < 6000; i++) {
+            graph.set("w" + random.nextInt(2500), "w" + random.nextInt(2500), 1 + random.nextInt(3));
+        }
+        IndexedGraph<String> indexed = new IndexedGraph<>(graph);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        Ranking<String> sequential = new PageRank<>(indexed, 0.85, 1e-10, 200, single).rank();
+        Ranking<String> parallel = new PageRank<>(indexed, 0.85, 1e-10, 200, many).rank();
+        for (String v : graph.vertices()) {
+            assertEquals("parallel score differs", sequential.score(v), parallel.score(v), 1e-9);
+        }
+
+        graph.set("w1", "w2", 5);
+        PageRank<String> updated = new PageRank<>(new IndexedGraph<>(graph), 0.85, 1e-10, 200, many);
+        Ranking<String> cold = updated.rank();
+        Ranking<String> warm = updated.rank(parallel);
+        assertTrue("warm start should converge", warm.isConverged());
+        assertTrue("warm start should take fewer iterations",
+                  warm.getIterations() < cold.getIterations());
+        for (String v : graph.vertices()) {
+            assertEquals("warm score differs", cold.score(v), warm.score(v), 1e-8);
+        }
+        single.shutdown();
+        many.shutdown();
+    }
+
+    @Test
+    public void testIterationLimit() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.set("a", "b", 1);
+        graph.set("b", "b", 1);
+        Ranking<String> ranking = new PageRank<>(new IndexedGraph<>(graph), 0.85, 0, 3,
+                ForkJoinPool.commonPool()).rank();
+        assertFalse("zero tolerance should not converge", ranking.isConverged());
+        assertEquals("iteration limit", 3, ranking.getIterations());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidDamping() {
+        new PageRank<>(new IndexedGraph<>(new ConcreteVerticesGraph()), 1.5, 0, 1,
+                ForkJoinPool.commonPool());
+    }
+}
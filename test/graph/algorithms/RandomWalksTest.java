@@ -0,0 +1,77 @@
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+import java.util.*;
+import org.junit.Test;
+
+public class RandomWalksTest {
+
+    // Testing strategy for RandomWalks
+    //   start: absent, no outgoing edges, one edge, several weighted edges
+    //   steps: 0, more than the walk can take
+    //   seeds: same seed twice, different seeds
+    //   walks(): sequential and parallel agree; tables built lazily or eagerly
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static Graph<String> sample() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 3);
+        graph.set("b", "a", 1);
+        graph.set("c", "a", 1);
+        graph.set("c", "end", 1);
+        return graph;
+    }
+
+    @Test
+    public void testWalkEdges() {
+        RandomWalks<String> walks = new RandomWalks<>(new IndexedGraph<>(sample()));
+        assertTrue("absent start", walks.walk("zzz", 5, 1).isEmpty());
+        assertEquals("zero steps", Arrays.asList("a"), walks.walk("a", 0, 1));
+        assertEquals("dead end", Arrays.asList("end"), walks.walk("end", 5, 1));
+        Graph<String> graph = sample();
+        for (long seed = 0; seed < 50; seed++) {
+            List<String> walk = walks.walk("a", 10, seed);
+            for (int i = 1; i < walk.size(); i++) {
+                assertTrue("walk should follow edges",
+                          graph.targets(walk.get(i - 1)).containsKey(walk.get(i)));
+            }
+            assertTrue("walk should stop only at a dead end",
+                      walk.size() == 11 || walk.get(walk.size() - 1).equals("end"));
+        }
+    }
+
+    @Test
+    public void testWeightedFrequencies() {
+        RandomWalks<String> walks = new RandomWalks<>(new IndexedGraph<>(sample()));
+        int c = 0;
+        int trials = 20000;
+        for (List<String> walk : walks.walks("a", 1, trials, 35)) {
+            if (walk.get(1).equals("c")) {
+                c++;
+            }
+        }
+        assertEquals("c should be chosen three times in four", 0.75, (double) c / trials, 0.02);
+    }
+
+    @Test
+    public void testReproducible() {
+        IndexedGraph<String> graph = new IndexedGraph<>(sample());
+        RandomWalks<String> lazy = new RandomWalks<>(graph);
+        RandomWalks<String> eager = new RandomWalks<>(graph);
+        eager.buildAll();
+        assertEquals("same seed should give same walk", lazy.walk("a", 20, 7), eager.walk("a", 20, 7));
+        List<List<String>> parallel = lazy.walks("a", 20, 100, 9);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("parallel walks should be reproducible", parallel, eager.walks("a", 20, 100, 9));
+        }
+        assertNotEquals("different seeds should usually differ",
+                       lazy.walks("a", 20, 10, 1), lazy.walks("a", 20, 10, 2));
+    }
+}
@@ -0,0 +1,131 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BigramWindowTest {
+
+    // Testing strategy for BigramWindow
+    //   mode: last tokens, last duration, decaying
+    //   feeds: one, several joined across feeds, punctuation-only words
+    //   expiry: none yet, one bucket, whole window after idling
+    //   weights: counted within a bucket, counted across buckets, decayed to zero,
+    //            decayed over several epochs then counted again
+    //   decay mode graph: read-only; bounded over a long stream of one-token
+    //                     epochs
+    //   GraphPoet.streaming(): bridges appear and disappear with the stream
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testCountsAcrossFeeds() {
+        BigramWindow window = BigramWindow.lastTokens(100, 4);
+        window.feed("To be,");
+        window.feed(" -- or not TO BE");
+        assertEquals("tokens counted", 6, window.tokens());
+        assertEquals("bigram counted in both feeds", 2, (int) window.graph().targets("to").get("be"));
+        assertEquals("feeds should be joined", 1, (int) window.graph().targets("be").get("or"));
+    }
+
+    @Test
+    public void testTokenWindowExpiresOldBigrams() {
+        BigramWindow window = BigramWindow.lastTokens(4, 2);
+        window.feed("a b");
+        assertEquals("first bigram present", 1, (int) window.graph().targets("a").get("b"));
+        window.feed("c d e f g");
+        assertFalse("old bigram should expire", window.graph().targets("a").containsKey("b"));
+        assertFalse("isolated word should be removed", window.graph().vertices().contains("a"));
+        assertTrue("recent bigram present", window.graph().targets("f").containsKey("g"));
+        assertTrue("window should be bounded", window.graph().vertices().size() <= 5);
+    }
+
+    @Test
+    public void testDurationWindowExpiresAfterIdle() {
+        AtomicLong now = new AtomicLong(0);
+        BigramWindow window = BigramWindow.lastDuration(60, 3, now::get);
+        window.feed("x y");
+        now.set(30);
+        window.feed("y z");
+        assertEquals("both bigrams present", new HashSet<>(Arrays.asList("x", "y", "z")),
+                    window.graph().vertices());
+        now.set(75);
+        window.feed("");
+        assertEquals("first bigram expired", new HashSet<>(Arrays.asList("y", "z")),
+                    window.graph().vertices());
+        now.set(1000);
+        window.feed("");
+        assertEquals("everything expired", Collections.emptySet(), window.graph().vertices());
+    }
+
+    @Test
+    public void testDecayRemovesZeroWeights() {
+        BigramWindow window = BigramWindow.decaying(0.5, 4);
+        window.feed("a b a b");
+        assertEquals("weight should be halved after a step", 1, (int) window.graph().targets("a").get("b"));
+        assertFalse("edge decayed to zero should be removed", window.graph().targets("b").containsKey("a"));
+        window.feed("c d e f");
+        assertFalse("decayed word should be removed", window.graph().vertices().contains("a"));
+        assertTrue("graph should stay small", window.graph().vertices().size() <= 6);
+    }
+
+    @Test
+    public void testDecayOverSeveralEpochs() {
+        BigramWindow window = BigramWindow.decaying(0.5, 40);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            text.append("a b ");
+        }
+        window.feed(text.toString());
+        assertEquals("weight after one epoch", 10, (int) window.graph().targets("a").get("b"));
+        text.setLength(0);
+        for (int i = 0; i < 40; i++) {
+            text.append("y ");
+        }
+        window.feed(text.toString());
+        assertEquals("weight should decay by the factor per epoch",
+                    5, (int) window.graph().targets("a").get("b"));
+        assertEquals("sources should decay the same way", 4, (int) window.graph().sources("a").get("b"));
+        window.feed("a b");
+        assertEquals("counting again should add to the decayed weight",
+                    6, (int) window.graph().targets("a").get("b"));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testDecayGraphReadOnly() {
+        BigramWindow.decaying(0.5, 1).graph().set("a", "b", 1);
+    }
+
+    @Test
+    public void testDecayBoundedOverLongStream() {
+        BigramWindow window = BigramWindow.decaying(0.5, 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            text.append("w").append(i % 1000).append(' ');
+        }
+        window.feed(text.toString());
+        assertTrue("only recent words should remain", window.graph().vertices().size() <= 4);
+    }
+
+    @Test
+    public void testStreamingPoet() {
+        BigramWindow window = BigramWindow.lastTokens(6, 3);
+        GraphPoet poet = GraphPoet.streaming(window);
+        assertEquals("no bridge before feeding", "hello world", poet.poem("hello world"));
+        window.feed("hello big world");
+        assertEquals("bridge from stream", "hello big world", poet.poem("hello world"));
+        window.feed("one two three four five six seven");
+        assertEquals("bridge should expire", "hello world", poet.poem("hello world"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidDecay() {
+        BigramWindow.decaying(1.0, 10);
+    }
+}
@@ -0,0 +1,112 @@
+package poet;
+
+import static org.junit.Assert.*;
+import graph.Graph;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+public class CorpusIndexGraphTest {
+
+    // Testing strategy for CorpusIndexGraph
+    //   corpus: empty, one word, many lines, Zipf-distributed
+    //   sources() and targets(): first and last token, repeated bigrams,
+    //                            absent word, each word after eviction
+    //   cache: smaller than the vocabulary
+    //   index windows: default, one long per window, illegal size
+    //   mutators throw
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /**
+     * Build the bigram graph of a corpus the eager way.
+     */
+    private static Map<String, Map<String, Integer>> eagerTargets(File corpus) throws IOException {
+        List<String> words = new GraphPoet(corpus).getCorpusWords();
+        Map<String, Map<String, Integer>> targets = new HashMap<>();
+        for (String word : words) {
+            targets.putIfAbsent(word, new HashMap<>());
+        }
+        for (int i = 0; i + 1 < words.size(); i++) {
+            targets.get(words.get(i)).merge(words.get(i + 1), 1, Integer::sum);
+        }
+        return targets;
+    }
+
+    private static void assertMatchesEager(File corpus, int cachedWords) throws IOException {
+        assertMatchesEager(corpus, cachedWords, CorpusIndexGraph.DEFAULT_WINDOW_BITS);
+    }
+
+    private static void assertMatchesEager(File corpus, int cachedWords, int windowBits) throws IOException {
+        Map<String, Map<String, Integer>> expected = eagerTargets(corpus);
+        CorpusIndexGraph graph = new CorpusIndexGraph(corpus, cachedWords, windowBits);
+        assertEquals("vertices", expected.keySet(), graph.vertices());
+        for (int round = 0; round < 2; round++) {
+            for (String word : expected.keySet()) {
+                assertEquals("targets of " + word, expected.get(word), graph.targets(word));
+                Map<String, Integer> sources = new HashMap<>();
+                for (Map.Entry<String, Map<String, Integer>> source : expected.entrySet()) {
+                    Integer weight = source.getValue().get(word);
+                    if (weight != null) {
+                        sources.put(source.getKey(), weight);
+                    }
+                }
+                assertEquals("sources of " + word, sources, graph.sources(word));
+            }
+        }
+        assertTrue("cache bounded", graph.cachedTargets() <= cachedWords);
+    }
+
+    @Test
+    public void testOneWord() throws IOException {
+        assertMatchesEager(new File("test/poet/TestOneWord.txt"), 4);
+    }
+
+    @Test
+    public void testMultipleLines() throws IOException {
+        assertMatchesEager(new File("test/poet/TestMultipleLines.txt"), 1000);
+    }
+
+    @Test
+    public void testZipfCorpusWithEviction() throws IOException {
+        File corpus = File.createTempFile("lazy", ".txt");
+        corpus.deleteOnExit();
+        ZipfCorpus.write(corpus, 3000, 200, 41);
+        assertMatchesEager(corpus, 8);
+    }
+
+    @Test
+    public void testSmallestWindows() throws IOException {
+        assertMatchesEager(new File("test/poet/TestMultipleLines.txt"), 1000, 3);
+        File corpus = File.createTempFile("lazy", ".txt");
+        corpus.deleteOnExit();
+        ZipfCorpus.write(corpus, 3000, 200, 43);
+        assertMatchesEager(corpus, 8, 4);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testWindowTooSmall() throws IOException {
+        new CorpusIndexGraph(new File("test/poet/TestOneLine.txt"), 4, 2);
+    }
+
+    @Test
+    public void testEmptyAndAbsent() throws IOException {
+        File corpus = File.createTempFile("lazy", ".txt");
+        corpus.deleteOnExit();
+        CorpusIndexGraph graph = new CorpusIndexGraph(corpus, 4);
+        assertTrue("no vertices", graph.vertices().isEmpty());
+        assertTrue("absent word", graph.targets("zebra").isEmpty());
+        assertTrue("absent word", graph.sources("zebra").isEmpty());
+        assertEquals("absent words not cached", 0, graph.cachedTargets());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testReadOnly() throws IOException {
+        Graph<String> graph = new CorpusIndexGraph(new File("test/poet/TestOneLine.txt"), 4);
+        graph.set("a", "b", 1);
+    }
+}
@@ -0,0 +1,72 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class CountMinSketchTest {
+
+    // Testing strategy for CountMinSketch
+    //   bigrams: never added, added once, added many times, skewed counts
+    //   parameters: valid, epsilon or delta out of range, epsilon so small that
+    //               the counters would not fit in an array
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testEmpty() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        assertEquals("unseen bigram", 0, sketch.estimate("a", "b"));
+        assertEquals("total", 0, sketch.total());
+    }
+
+    @Test
+    public void testEstimatesWithinBound() {
+        double epsilon = 0.01;
+        CountMinSketch sketch = new CountMinSketch(epsilon, 0.001);
+        Map<String, Integer> truth = new HashMap<>();
+        Random random = new Random(32);
+        for (int i = 0; i < 20000; i++) {
+            // skewed: low ids are far more frequent
+            int first = (int) Math.pow(random.nextInt(1000), 2) / 1000;
+            int second = random.nextInt(50);
+            sketch.add("w" + first, "w" + second);
+            truth.merge(first + " " + second, 1, Integer::sum);
+        }
+        int violations = 0;
+        for (Map.Entry<String, Integer> entry : truth.entrySet()) {
+            String[] pair = entry.getKey().split(" ");
+            int estimate = sketch.estimate("w" + pair[0], "w" + pair[1]);
+            assertTrue("estimate should never undercount", estimate >= entry.getValue());
+            if (estimate > entry.getValue() + epsilon * sketch.total()) {
+                violations++;
+            }
+        }
+        assertEquals("no estimate should exceed the error bound", 0, violations);
+        assertEquals("total", 20000, sketch.total());
+    }
+
+    @Test
+    public void testOrderMatters() {
+        CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+        sketch.add("a", "b");
+        sketch.add("a", "b");
+        assertEquals("added bigram", 2, sketch.estimate("a", "b"));
+        assertEquals("reversed bigram", 0, sketch.estimate("b", "a"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidEpsilon() {
+        new CountMinSketch(0, 0.01);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testTinyEpsilon() {
+        new CountMinSketch(1e-300, 0.01);
+    }
+}
@@ -1,9 +1,12 @@
 package poet;
 
 import static org.junit.Assert.*;
+import graph.Zipf;
 import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class GraphPoetTest {
     
@@ -67,4 +70,133 @@ public class GraphPoetTest {
         assertTrue("Should add bridge word between input words",
                   output.split(" ").length > 2 && output.contains("strange"));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testApproximateMatchesExactOnSmallCorpus() throws IOException {
+        File corpus = new File("test/poet/TestOneLine.txt");
+        GraphPoet exact = new GraphPoet(corpus);
+        GraphPoet approximate = GraphPoet.approximate(corpus, 0.001, 0.001, 1);
+        String input = "Seek to explore new and exciting synergies!";
+        assertEquals("approximate poem should match exact poem",
+                    exact.poem(input), approximate.poem(input));
+        assertTrue("approximate mode should not retain corpus words",
+                  approximate.getCorpusWords().isEmpty());
+    }
+    
+    @Test
+    public void testApproximateThresholdDropsRareBigrams() throws IOException {
+        GraphPoet poet = GraphPoet.approximate(new File("test/poet/TestOneLine.txt"), 0.001, 0.001, 2);
+        assertEquals("bigrams seen once should not bridge",
+                    "explore new", poet.poem("explore new"));
+    }
+    
+    @Test
+    public void testTopKMatchesExactOnSmallCorpus() throws IOException {
+        File corpus = new File("src/poet/mugar-omni-theater.txt");
+        GraphPoet exact = new GraphPoet(corpus);
+        GraphPoet topK = GraphPoet.topK(corpus, 8, 1);
+        String input = "Test of the limits and science";
+        assertEquals("top-k poem should match exact poem",
+                    exact.poem(input), topK.poem(input));
+    }
+    
+    @Test
+    public void testOverlaySumsSharedAndPrivateCorpora() throws IOException {
+        GraphPoet shared = new GraphPoet(new File("test/poet/TestOneLine.txt"));
+        GraphPoet tenant = GraphPoet.overlay(shared, new File("test/poet/TestMultipleLines.txt"));
+        assertEquals("shared bridges should remain",
+                    shared.poem("explore new"), tenant.poem("explore new"));
+        assertEquals("private bridges should be added",
+                    "you may write me down", tenant.poem("you write me down"));
+        assertEquals("shared poet should not see private corpus",
+                    "you write me down", shared.poem("you write me down"));
+        assertEquals("tenant corpus words are private only", 26, tenant.getCorpusWords().size());
+    }
+    
+    @Test
+    public void testGenerateFollowsCorpus() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/TestMultipleLines.txt"));
+        String text = poet.generate("You", 4, 42);
+        assertTrue("walk should start at the start word", text.startsWith("you "));
+        assertEquals("walk should have the requested length", 5, text.split(" ").length);
+        assertEquals("same seed should give the same text", text, poet.generate("you", 4, 42));
+        assertEquals("absent start word", "", poet.generate("zebra", 4, 42));
+        assertEquals("parallel texts", 8, poet.generate("you", 4, 8, 42).size());
+        assertEquals("words that are never followed end the walk", "rise", poet.generate("rise!", 4, 1));
+    }
+    
+    @Test
+    public void testPredictedHeapMatchesEstimate() throws IOException {
+        File corpus = File.createTempFile("footprint", ".txt");
+        corpus.deleteOnExit();
+        ZipfCorpus.write(corpus, 20000, 2000, 39);
+        Map<String, Long> predicted = GraphPoet.predictHeapBytes(corpus);
+        GraphPoet poet = new GraphPoet(corpus);
+        assertEquals("prediction for the default graph should match the built poet",
+                    poet.estimatedHeapBytes(), (long) predicted.get("ConcreteVerticesGraph"));
+        assertTrue("compressed graph should need least",
+                  predicted.get("CompressedGraph") < predicted.get("ConcreteEdgesGraph")
+                  && predicted.get("CompressedGraph") < predicted.get("ConcreteVerticesGraph"));
+        
+        File small = new File("test/poet/TestMultipleLines.txt");
+        assertEquals("prediction for a small corpus",
+                    new GraphPoet(small).estimatedHeapBytes(),
+                    (long) GraphPoet.predictHeapBytes(small).get("ConcreteVerticesGraph"));
+    }
+    
+    @Test
+    public void testLazyMatchesEager() throws IOException {
+        File corpus = new File("src/poet/mugar-omni-theater.txt");
+        GraphPoet eager = new GraphPoet(corpus);
+        GraphPoet lazy = GraphPoet.lazy(corpus, 2);
+        for (String input : new String[] { "Test the system.", "Seek to explore new and exciting synergies!", "" }) {
+            assertEquals("lazy poem should match eager poem", eager.poem(input), lazy.poem(input));
+        }
+        assertTrue("lazy poet keeps no corpus words", lazy.getCorpusWords().isEmpty());
+    }
+    
+    @Test
+    public void testMultiWordBridges() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/TestMultipleLines.txt"));
+        assertEquals("no single-word bridge", "With twisted", poet.poem("With twisted"));
+        assertEquals("two-word bridge", "With your bitter twisted",
+                    poet.poem("With twisted", 2, 1, TimeUnit.SECONDS));
+        assertEquals("single-word bridge unchanged", poet.poem("write down"),
+                    poet.poem("write down", 3, 1, TimeUnit.SECONDS));
+        assertEquals("three-word bridge", "write me down in history with your",
+                    poet.poem("write down your", 3, 1, TimeUnit.SECONDS));
+        assertEquals("bridge longer than allowed", "write me down your",
+                    poet.poem("write down your", 2, 1, TimeUnit.SECONDS));
+        assertEquals("one word allowed is like poem()", poet.poem("With twisted lies"),
+                    poet.poem("With twisted lies", 1, 1, TimeUnit.SECONDS));
+        assertEquals("no time for longer bridges", "With twisted",
+                    poet.poem("With twisted", 2, 0, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testMultiWordBridgesSeeStream() {
+        BigramWindow window = BigramWindow.lastTokens(100, 4);
+        GraphPoet poet = GraphPoet.streaming(window);
+        assertEquals("no bridge before feeding", "alpha delta",
+                    poet.poem("alpha delta", 2, 1, TimeUnit.SECONDS));
+        window.feed("alpha beta gamma delta");
+        assertEquals("bridge from text fed after the first poem", "alpha beta gamma delta",
+                    poet.poem("alpha delta", 2, 1, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testLazyMultiWordBridgesWithinBudget() throws IOException {
+        File corpus = File.createTempFile("lazy", ".txt");
+        corpus.deleteOnExit();
+        ZipfCorpus.write(corpus, 500000, 20000, 53);
+        GraphPoet poet = GraphPoet.lazy(corpus, 16);
+        String input = "zzqq " + Zipf.word(0) + " " + Zipf.word(1) + " xyzzy";
+        // single-word bridges are not budgeted, so look them up first
+        poet.poem(input);
+        long start = System.nanoTime();
+        poet.poem(input, 3, 5, TimeUnit.MILLISECONDS);
+        long elapsed = System.nanoTime() - start;
+        assertTrue("first longer bridges should not load the whole corpus: " + elapsed,
+                  elapsed < TimeUnit.MILLISECONDS.toNanos(250));
+    }
+}
@@ -0,0 +1,81 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    // Testing strategy for LatencyHistogram
+    //   values: none, exact range (< 128), large, Long.MAX_VALUE, negative
+    //   percentile: 0, 50, 99.9, 100, out of range
+    //   add(): empty and nonempty histograms
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals("count", 0, histogram.count());
+        assertEquals("p50", 0, histogram.percentile(50));
+        assertEquals("mean", 0, histogram.mean(), 0);
+    }
+
+    @Test
+    public void testExactValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int v = 1; v <= 100; v++) {
+            histogram.record(v);
+        }
+        assertEquals("p0", 1, histogram.percentile(0));
+        assertEquals("p50", 50, histogram.percentile(50));
+        assertEquals("p99", 99, histogram.percentile(99));
+        assertEquals("p100", 100, histogram.percentile(100));
+        assertEquals("mean", 50.5, histogram.mean(), 1e-9);
+    }
+
+    @Test
+    public void testLargeValuesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1000; v <= 1000000; v += 1000) {
+            histogram.record(v * 1000);
+        }
+        assertEquals("count", 1000, histogram.count());
+        long p50 = histogram.percentile(50);
+        assertTrue("p50 within 1/64 of 500ms: " + p50,
+                  p50 >= 500000000L && p50 <= 500000000L * 65 / 64);
+        long p999 = histogram.percentile(99.9);
+        assertTrue("p99.9 within 1/64 of 999ms: " + p999,
+                  p999 >= 999000000L && p999 <= 999000000L * 65 / 64);
+        assertEquals("max is exact", 1000000000L, histogram.max());
+        histogram.record(Long.MAX_VALUE);
+        assertEquals("p100 of largest value", Long.MAX_VALUE, histogram.percentile(100));
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(20);
+        second.record(30);
+        first.add(second);
+        first.add(new LatencyHistogram());
+        assertEquals("count", 3, first.count());
+        assertEquals("p50", 20, first.percentile(50));
+        assertEquals("max", 30, first.max());
+        assertEquals("other unchanged", 2, second.count());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeValue() {
+        new LatencyHistogram().record(-1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new LatencyHistogram().percentile(101);
+    }
+}
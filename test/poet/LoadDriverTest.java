@@ -0,0 +1,48 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class LoadDriverTest {
+
+    // Testing strategy for LoadDriver.run()
+    //   rate: closed-loop (0), open-loop
+    //   threads: 1, > 1
+    //   results: counts, ordered percentiles, parseable JSON fields
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final List<String> INPUTS = Arrays.asList("You write me in the dirt", "may me down");
+
+    @Test
+    public void testClosedLoop() throws IOException, InterruptedException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/TestMultipleLines.txt"));
+        LoadDriver.Result result = LoadDriver.run(poet, INPUTS, 4, 0, 2000);
+        assertEquals("requests", 2000, result.getRequests());
+        assertTrue("throughput", result.getOpsPerSecond() > 0);
+        assertTrue("p50 <= p99", result.getLatencyNanos(50) <= result.getLatencyNanos(99));
+        assertTrue("p99 <= p99.9", result.getLatencyNanos(99) <= result.getLatencyNanos(99.9));
+        String json = result.toJson();
+        assertTrue("JSON object: " + json, json.startsWith("{") && json.endsWith("}"));
+        for (String field : Arrays.asList("\"requests\":2000", "\"p99.9\":", "\"pauseMillis\":",
+                "\"allocatedBytesPerRequest\":")) {
+            assertTrue("JSON should contain " + field + ": " + json, json.contains(field));
+        }
+    }
+
+    @Test
+    public void testOpenLoopPacing() throws IOException, InterruptedException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/TestMultipleLines.txt"));
+        LoadDriver.Result result = LoadDriver.run(poet, INPUTS, 2, 1000, 200);
+        assertEquals("requests", 200, result.getRequests());
+        assertTrue("paced to about 1000 per second: " + result.getOpsPerSecond(),
+                  result.getOpsPerSecond() < 1100);
+    }
+}
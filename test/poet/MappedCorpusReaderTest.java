@@ -0,0 +1,90 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MappedCorpusReaderTest {
+
+    // Testing strategy for MappedCorpusReader.nextWord()
+    //   file: empty, whitespace only, one word, many lines
+    //   characters: ASCII, multi-byte UTF-8, supplementary, malformed bytes
+    //   window size: larger than file, smaller than a word, splitting a sequence
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static List<String> readAll(File file, int windowSize) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (MappedCorpusReader reader = new MappedCorpusReader(file, windowSize)) {
+            String word;
+            while ((word = reader.nextWord()) != null) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static File write(byte[] bytes) throws IOException {
+        File file = File.createTempFile("corpus", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        File file = write(new byte[0]);
+        assertEquals("empty file should have no words",
+                    Collections.emptyList(), readAll(file, 16));
+    }
+
+    @Test
+    public void testWhitespaceAndPunctuationOnly() throws IOException {
+        File file = write(" \t\r\n -- !! \u000B\f ".getBytes(StandardCharsets.UTF_8));
+        assertEquals("punctuation-only tokens should be skipped",
+                    Collections.emptyList(), readAll(file, 16));
+    }
+
+    @Test
+    public void testMultipleLines() throws IOException {
+        File file = new File("test/poet/TestMultipleLines.txt");
+        List<String> expected = Arrays.asList(
+                "you", "may", "write", "me", "down", "in", "history",
+                "with", "your", "bitter", "twisted", "lies",
+                "you", "may", "trod", "me", "in", "the", "very", "dirt",
+                "but", "still", "like", "dust", "ill", "rise");
+        assertEquals("words incorrect with large window",
+                    expected, readAll(file, MappedCorpusReader.DEFAULT_WINDOW_SIZE));
+        assertEquals("words incorrect with tiny window",
+                    expected, readAll(file, 4));
+    }
+
+    @Test
+    public void testMultiByteAcrossWindows() throws IOException {
+        String text = "Caf\u00e9 NA\u00cfVE x d\u00e9j\u00e0-vu \ud83d\ude00smile\ud83d\ude00 a\u00a0b Stra\u00dfe\n";
+        File file = write(text.getBytes(StandardCharsets.UTF_8));
+        List<String> expected = Arrays.asList("caf\u00e9", "na\u00efve", "x", "d\u00e9j\u00e0vu", "smile", "ab", "stra\u00dfe");
+        for (int window = 4; window <= 12; window++) {
+            assertEquals("words incorrect with window " + window,
+                        expected, readAll(file, window));
+        }
+    }
+
+    @Test
+    public void testMalformedBytes() throws IOException {
+        byte[] bytes = { 'a', (byte) 0xC3, 'b', ' ', (byte) 0x80, 'c', ' ', (byte) 0xFF };
+        File file = write(bytes);
+        assertEquals("malformed bytes should be dropped like punctuation",
+                    Arrays.asList("ab", "c"), readAll(file, 4));
+    }
+}
@@ -0,0 +1,218 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class PoemServerTest {
+
+    // Testing strategy for PoemServer
+    //   /poem: small body, concurrent small bodies (batched), body larger
+    //          than STREAM_THRESHOLD (streamed), wrong method, malformed
+    //          Content-Length (rejected by the HTTP server or the handler),
+    //          chunked bodies below and above STREAM_THRESHOLD
+    //   /health: before and after requests
+    //   unknown path
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private GraphPoet poet;
+    private PoemServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        poet = new GraphPoet(new File("test/poet/TestMultipleLines.txt"));
+        server = new PoemServer(poet, 0, 8);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Response send(String method, String path, String body) throws IOException {
+        return send(method, path, body, false);
+    }
+
+    private Response send(String method, String path, String body, boolean chunked) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            if (chunked) {
+                connection.setChunkedStreamingMode(1024);
+            } else {
+                connection.setFixedLengthStreamingMode(bytes.length);
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = stream.read(buffer)) > 0; ) {
+                    bytes.write(buffer, 0, n);
+                }
+            }
+        }
+        return new Response(status, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPoem() throws IOException {
+        String input = "You write me in the dirt";
+        Response response = send("POST", "/poem", input);
+        assertEquals("status", 200, response.status);
+        assertEquals("poem should match GraphPoet", poet.poem(input), response.body);
+    }
+
+    @Test
+    public void testConcurrentPoems() throws Exception {
+        String[] inputs = { "You write me in the dirt", "may me down", "But like dust", "twisted" };
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String input = inputs[i % inputs.length];
+                responses.add(clients.submit(() -> send("POST", "/poem", input)));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                Response response = responses.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals("status", 200, response.status);
+                assertEquals("poem should match GraphPoet",
+                            poet.poem(inputs[i % inputs.length]), response.body);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        String health = send("GET", "/health", null).body;
+        assertTrue("all requests should be counted: " + health, health.contains("\"requests\":40"));
+        assertTrue("all requests should be batched: " + health, health.contains("\"batchedRequests\":40"));
+    }
+
+    @Test
+    public void testStreamedPoem() throws IOException {
+        StringBuilder input = new StringBuilder();
+        List<String> lines = new ArrayList<>();
+        while (input.length() <= PoemServer.STREAM_THRESHOLD) {
+            String line = "You write me in the dirt " + lines.size();
+            lines.add(line);
+            input.append(line).append('\n');
+        }
+        Response response = send("POST", "/poem", input.toString());
+        assertEquals("status", 200, response.status);
+        StringBuilder expected = new StringBuilder();
+        for (String line : lines) {
+            if (expected.length() > 0) {
+                expected.append('\n');
+            }
+            expected.append(poet.poem(line));
+        }
+        assertEquals("each line should be a poem", expected.toString(), response.body);
+        String health = send("GET", "/health", null).body;
+        assertTrue("request should be streamed: " + health, health.contains("\"streamedRequests\":1"));
+    }
+
+    @Test
+    public void testChunkedBodyDecidedBySize() throws IOException {
+        String input = "You write me\nin the dirt";
+        Response chunked = send("POST", "/poem", input, true);
+        assertEquals("status", 200, chunked.status);
+        assertEquals("small chunked body should be batched like a sized one",
+                    send("POST", "/poem", input).body, chunked.body);
+        StringBuilder large = new StringBuilder();
+        while (large.length() <= PoemServer.STREAM_THRESHOLD) {
+            large.append("You write me in the dirt\n");
+        }
+        Response streamed = send("POST", "/poem", large.toString(), true);
+        assertEquals("large chunked body should be streamed like a sized one",
+                    send("POST", "/poem", large.toString()).body, streamed.body);
+        String health = send("GET", "/health", null).body;
+        assertTrue("two small bodies batched: " + health, health.contains("\"batchedRequests\":2"));
+        assertTrue("two large bodies streamed: " + health, health.contains("\"streamedRequests\":2"));
+    }
+
+    @Test
+    public void testWrongMethod() throws IOException {
+        assertEquals("GET /poem status", 405, send("GET", "/poem", null).status);
+    }
+
+    /**
+     * Send a request with raw headers, which HttpURLConnection would check.
+     *
+     * @return the status line of the response, or null if the connection
+     *         was closed without one
+     */
+    private String sendRaw(String headers) throws IOException {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /poem HTTP/1.1\r\nHost: localhost\r\n" + headers
+                    + "Connection: close\r\n\r\nhello").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            return in.readLine();
+        }
+    }
+
+    @Test
+    public void testMalformedContentLength() throws IOException {
+        for (String length : Arrays.asList("abc", "-5", "5x")) {
+            assertEquals("Content-Length " + length, "HTTP/1.1 400 Bad Request",
+                        sendRaw("Content-Length: " + length + "\r\n"));
+        }
+        assertEquals("server should still answer", 200, send("POST", "/poem", "You dirt").status);
+    }
+
+    @Test
+    public void testContentLength() {
+        assertEquals("absent", -1, PoemServer.contentLength(null));
+        assertEquals("valid", 42, PoemServer.contentLength("42"));
+        assertEquals("padded", 42, PoemServer.contentLength(" 42 "));
+        for (String length : Arrays.asList("abc", "-5", "5x", "", "99999999999999999999")) {
+            assertEquals("malformed " + length, -2, PoemServer.contentLength(length));
+        }
+    }
+
+    @Test
+    public void testHealth() throws IOException {
+        Response response = send("GET", "/health", null);
+        assertEquals("status", 200, response.status);
+        assertTrue("should report ok: " + response.body, response.body.contains("\"status\":\"ok\""));
+        assertTrue("should report no requests: " + response.body, response.body.contains("\"requests\":0"));
+    }
+
+    @Test
+    public void testUnknownPath() throws IOException {
+        assertEquals("unknown path status", 404, send("GET", "/nothing", null).status);
+    }
+}
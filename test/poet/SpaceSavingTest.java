@@ -0,0 +1,56 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SpaceSavingTest {
+
+    // Testing strategy for SpaceSaving
+    //   distinct words: fewer than capacity, more than capacity
+    //   threshold: 1, above some counts
+    //   capacity: invalid
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testExactUnderCapacity() {
+        SpaceSaving summary = new SpaceSaving(4);
+        summary.offer("a");
+        summary.offer("b");
+        summary.offer("a");
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 2);
+        expected.put("b", 1);
+        assertEquals("counts should be exact under capacity", expected, summary.top(1));
+        expected.remove("b");
+        assertEquals("threshold should filter", expected, summary.top(2));
+    }
+
+    @Test
+    public void testHeavyHittersRetained() {
+        SpaceSaving summary = new SpaceSaving(3);
+        for (int i = 0; i < 300; i++) {
+            summary.offer("heavy");
+            summary.offer("rare" + i);
+            if (i % 3 == 0) {
+                summary.offer("medium");
+            }
+        }
+        Map<String, Integer> top = summary.top(1);
+        assertTrue("most frequent word should be tracked", top.containsKey("heavy"));
+        assertTrue("count should not undercount", top.get("heavy") >= 300);
+        assertTrue("count should overcount by at most total / capacity",
+                  top.get("heavy") <= 300 + 700 / 3);
+        assertEquals("at most capacity words", 3, top.size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new SpaceSaving(0);
+    }
+}
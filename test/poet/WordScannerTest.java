@@ -0,0 +1,85 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class WordScannerTest {
+
+    // Testing strategy for WordScanner
+    //   input: empty, whitespace only, one word, many words, control
+    //          characters at the ends and in the middle
+    //   word: all letters, mixed case, punctuation only, punctuation mixed
+    //         into letters, non-ASCII letters
+    //   compare against input.trim().split("\\s+") cleaned char by char
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static List<String> scan(String input) {
+        List<String> result = new ArrayList<>();
+        WordScanner scanner = new WordScanner(input);
+        while (scanner.next()) {
+            StringBuilder word = new StringBuilder();
+            scanner.appendWord(word);
+            result.add(word + "|" + scanner.key());
+        }
+        return result;
+    }
+
+    private static List<String> expected(String input) {
+        List<String> result = new ArrayList<>();
+        if (input.trim().isEmpty()) {
+            return result;
+        }
+        for (String word : input.trim().split("\\s+")) {
+            StringBuilder clean = new StringBuilder();
+            StringBuilder punctuation = new StringBuilder();
+            for (char c : word.toCharArray()) {
+                (Character.isLetterOrDigit(c) ? clean : punctuation).append(c);
+            }
+            result.add(clean + "" + punctuation + "|" + clean.toString().toLowerCase());
+        }
+        return result;
+    }
+
+    @Test
+    public void testEmptyAndWhitespace() {
+        assertEquals("empty input has no words", new ArrayList<String>(), scan(""));
+        assertEquals("whitespace input has no words", new ArrayList<String>(), scan(" \t\n "));
+    }
+
+    @Test
+    public void testWordsWithPunctuation() {
+        String input = "  Seek to, EXPLORE new-ish... worlds!  ";
+        assertEquals("words incorrect", expected(input), scan(input));
+        assertEquals("punctuation should follow the clean word",
+                    Arrays.asList("Seek|seek", "to,|to", "EXPLORE|explore", "newish-...|newish", "worlds!|worlds"),
+                    scan(input));
+    }
+
+    @Test
+    public void testPunctuationOnlyAndControlCharacters() {
+        String input = "\u0001a -- \u0001 b\u0002";
+        assertEquals("words incorrect", expected(input), scan(input));
+    }
+
+    @Test
+    public void testNonAscii() {
+        String input = "\u00c9t\u00e9 caf\u00c9 NOIR \u00a0x \u00bfQu\u00e9?";
+        assertEquals("words incorrect", expected(input), scan(input));
+    }
+
+    @Test
+    public void testLongWord() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append("Ab.");
+        }
+        assertEquals("words incorrect", expected(input.toString()), scan(input.toString()));
+    }
+}
@@ -0,0 +1,65 @@
+package poet;
+
+import graph.Zipf;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Seeded generator of synthetic text corpora with Zipf-distributed word
+ * frequencies, for scaling tests of GraphPoet.
+ *
+ * <p>Run main to write a corpus:
+ * {@code java poet.ZipfCorpus file words [vocabulary] [seed]}
+ */
+public class ZipfCorpus {
+
+    private static final String[] PUNCTUATION = { ",", ".", "!", "?", ";" };
+
+    private ZipfCorpus() {
+        throw new AssertionError("ZipfCorpus is not instantiable");
+    }
+
+    /**
+     * Write a corpus of words drawn from a Zipf distribution, some
+     * capitalized or followed by punctuation, about twelve words per line.
+     *
+     * @param file file to write, replaced if it exists
+     * @param words number of words
+     * @param vocabulary positive number of distinct words
+     * @param seed random seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File file, long words, int vocabulary, long seed) throws IOException {
+        Zipf zipf = new Zipf(vocabulary, 1.0, seed);
+        Random random = new Random(seed + 1);
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (long i = 0; i < words; i++) {
+                String word = Zipf.word(zipf.next());
+                if (random.nextInt(10) == 0) {
+                    word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                }
+                out.write(word);
+                if (random.nextInt(12) == 0) {
+                    out.write(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+                }
+                out.write(random.nextInt(12) == 0 ? '\n' : ' ');
+            }
+        }
+    }
+
+    /**
+     * Write a corpus file.
+     *
+     * @param args file, number of words, optional vocabulary size and seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int vocabulary = args.length > 2 ? Integer.parseInt(args[2]) : 50000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 36;
+        write(new File(args[0]), Long.parseLong(args[1]), vocabulary, seed);
+    }
+}
@@ -0,0 +1,58 @@
+package poet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ZipfCorpusTest {
+
+    // Testing strategy for ZipfCorpus.write()
+    //   words: 0, many
+    //   seeds: same seed twice, different seeds
+    //   GraphPoet reads back exactly the requested number of words
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static File temporary() throws IOException {
+        File file = File.createTempFile("zipf", ".txt");
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testWordCountAndReproducibility() throws IOException {
+        File first = temporary();
+        File second = temporary();
+        ZipfCorpus.write(first, 2000, 300, 7);
+        ZipfCorpus.write(second, 2000, 300, 7);
+        assertTrue("same seed should give same corpus",
+                  Arrays.equals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath())));
+        GraphPoet poet = new GraphPoet(first);
+        assertEquals("word count", 2000, poet.getCorpusWords().size());
+        assertEquals("most common word", "a", mostCommon(poet));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        File file = temporary();
+        ZipfCorpus.write(file, 0, 10, 1);
+        assertEquals("empty corpus", 0, new GraphPoet(file).getCorpusWords().size());
+    }
+
+    private static String mostCommon(GraphPoet poet) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : poet.getCorpusWords()) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        return Collections.max(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+    }
+}